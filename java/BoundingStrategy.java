@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A strategy for enclosing the whole output of a function over the inputs of a search candidate,
+ * as the three interval codes (k-1,q), (k,q), (k+1,q) held by MinBox. The tighter the enclosure,
+ * the sooner candidates are eclipsed, so strategies can be compared by how much of the search area
+ * they discard. The strategies are:
+ *   modulus(): the value at the centre of the inputs +- the modulus of the function,
+ *   centred(): the centred (mean value) form, i.e. the value at the centre +- the half-widths of the
+ *     inputs times the partial derivatives bounded over the inputs,
+ *   auto(): the tighter of the two for each candidate,
+ *   taylor(n): the range over the inputs of a Taylor model of order n, whose overestimate shrinks with
+ *     the (n+1)-th power of the widths of the inputs, for the late phase of the search on small boxes.
+ */
+abstract class BoundingStrategy {
+
+	private static final BoundingStrategy MODULUS = new modulus_BoundingStrategy();
+	private static final BoundingStrategy CENTRED = new centred_BoundingStrategy();
+	private static final BoundingStrategy AUTO = best(MODULUS, CENTRED);
+
+	// Gives back the three interval codes enclosing the output of f over the inputs
+	// xs, or null if this strategy cannot bound it
+	protected abstract List<CRIntervalCode> tryBound(CRFunctionModulus f, List<CRIntervalCode> xs);
+
+	// Gives back the three interval codes enclosing the output of f over the inputs
+	// xs, falling back to the modulus where this strategy cannot bound it
+	public List<CRIntervalCode> bound(CRFunctionModulus f, List<CRIntervalCode> xs) {
+		List<CRIntervalCode> result = tryBound(f, xs);
+		return result == null ? MODULUS.tryBound(f, xs) : result;
+	}
+
+	// Returns the strategy bounding the output by the modulus of the function
+	public static BoundingStrategy modulus() {
+		return MODULUS;
+	}
+
+	// Returns the strategy bounding the output by the centred form
+	public static BoundingStrategy centred() {
+		return CENTRED;
+	}
+
+	// Returns the strategy taking the tighter of the modulus and the centred form
+	public static BoundingStrategy auto() {
+		return AUTO;
+	}
+
+	// Returns the strategy bounding the output by a Taylor model of the given order
+	public static BoundingStrategy taylor(int order) {
+		if (order < 0)
+			throw new IllegalArgumentException("Negative order " + order);
+		return new taylor_BoundingStrategy(order);
+	}
+
+	// Returns the strategy taking the tightest of the given strategies' enclosures
+	public static BoundingStrategy best(BoundingStrategy... strategies) {
+		return new best_BoundingStrategy(Arrays.asList(strategies));
+	}
+
+	// Returns the tighter of two enclosures, i.e. the one at the finer precision
+	// level (or the first, if they are at the same level); either may be null
+	protected static List<CRIntervalCode> tighter(List<CRIntervalCode> a, List<CRIntervalCode> b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		return b.get(1).getPrecision() < a.get(1).getPrecision() ? b : a;
+	}
+
+}
+
+// Subclass for the modulus of the function, computed in double interval
+// arithmetic where this is precise enough, and otherwise exactly or with CR
+// objects
+class modulus_BoundingStrategy extends BoundingStrategy {
+
+	protected List<CRIntervalCode> tryBound(CRFunctionModulus f, List<CRIntervalCode> xs) {
+		List<CRIntervalCode> result = f.applyInterval(xs);
+		return result == null ? f.apply(xs) : result;
+	}
+
+	public String toString() {
+		return "modulus";
+	}
+}
+
+// Subclass for the centred form, which is not available where the partial
+// derivatives are not bounded in double interval arithmetic
+class centred_BoundingStrategy extends BoundingStrategy {
+
+	protected List<CRIntervalCode> tryBound(CRFunctionModulus f, List<CRIntervalCode> xs) {
+		return f.applyCentred(xs);
+	}
+
+	public String toString() {
+		return "centred";
+	}
+}
+
+// Subclass for Taylor models of a given order, which are not available where the
+// function is not built from ring operations on constants and inputs
+class taylor_BoundingStrategy extends BoundingStrategy {
+	private int order;
+
+	public taylor_BoundingStrategy(int order) {
+		this.order = order;
+	}
+
+	protected List<CRIntervalCode> tryBound(CRFunctionModulus f, List<CRIntervalCode> xs) {
+		return f.applyTaylor(xs, order);
+	}
+
+	public String toString() {
+		return "taylor(" + order + ")";
+	}
+}
+
+// Subclass for the tightest of several strategies
+class best_BoundingStrategy extends BoundingStrategy {
+	private List<BoundingStrategy> strategies;
+
+	public best_BoundingStrategy(List<BoundingStrategy> strategies) {
+		this.strategies = new ArrayList<>(strategies);
+	}
+
+	protected List<CRIntervalCode> tryBound(CRFunctionModulus f, List<CRIntervalCode> xs) {
+		List<CRIntervalCode> result = null;
+		for (BoundingStrategy strategy : strategies) {
+			result = tighter(result, strategy.tryBound(f, xs));
+		}
+		return result;
+	}
+
+	public String toString() {
+		return "best of " + strategies;
+	}
+}
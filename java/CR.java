@@ -43,6 +43,9 @@
 //		negative divisors.  Hans_Boehm@hp.com 8/13/2001
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Constructive real numbers, also known as recursive, or computable reals. Each
@@ -84,8 +87,9 @@ import java.math.BigInteger;
  * but adds the caching necessary to obtain reasonable performance.
  * <P>
  * Any operation may throw <TT>com.sgi.math.AbortedError</tt> if the thread in
- * which it is executing is interrupted. (<TT>InterruptedException</tt> cannot
- * be used for this purpose, since CR inherits from <TT>Number</tt>.)
+ * which it is executing is interrupted, or if it runs under a <TT>CRBudget</tt>
+ * that is exceeded. (<TT>InterruptedException</tt> cannot be used for this
+ * purpose, since CR inherits from <TT>Number</tt>.)
  * <P>
  * Any operation may also throw <TT>com.sgi.math.PrecisionOverflowError</tt> If
  * the precision request generated during any subcalculation overflows a 28-bit
@@ -115,10 +119,42 @@ public abstract class CR extends Number {
 	 * Setting this to true requests that all computations be aborted by throwing
 	 * AbortedError. Must be rest to false before any further computation. Ideally
 	 * Thread.interrupt() should be used instead, but that doesn't appear to be
-	 * consistently supported by browser VMs.
+	 * consistently supported by browser VMs. To abort only some computations, run
+	 * them under a <TT>CRBudget</tt> instead.
 	 */
 	public volatile static boolean please_stop = false;
 
+	// Throw AbortedError if this thread has been interrupted,
+	// please_stop is set, or a CRBudget the current computation
+	// runs under has been cancelled or has expired.
+	static void check_abort() {
+		if (Thread.interrupted() || please_stop)
+			throw new AbortedError();
+		CRBudget.checkCurrent();
+	}
+
+	// The number of significant digits above which reciprocals
+	// are computed by Newton iteration rather than long division.
+	// Exposed for CRBenchmark.
+	static int newton_threshold() {
+		return inv_CR.newton_threshold;
+	}
+
+	static void set_newton_threshold(int digits) {
+		inv_CR.newton_threshold = digits;
+	}
+
+	// The number of bits of precision above which elementary
+	// function series are evaluated by binary splitting rather
+	// than term by term. Exposed for CRBenchmark.
+	static int series_splitting_threshold() {
+		return series_splitter.min_bits;
+	}
+
+	static void set_series_splitting_threshold(int bits) {
+		series_splitter.min_bits = bits;
+	}
+
 	/**
 	 * Must be defined in subclasses of <TT>CR</tt>. Most users can ignore the
 	 * existence of this method, and will not ever need to define a <TT>CR</tt>
@@ -129,13 +165,88 @@ public abstract class CR extends Number {
 	 */
 	protected abstract BigInteger approximate(int precision);
 
-	transient int min_prec;
-	// The smallest precision value with which the above
-	// has been called.
-	transient BigInteger max_appr;
-	// The scaled approximation corresponding to min_prec.
-	transient boolean appr_valid = false;
-	// min_prec and max_val are valid.
+	// Marks a long approximation as unavailable.
+	static final long no_long = Long.MIN_VALUE;
+
+	// Identical to approximate(), but returns the approximation
+	// with its precision, as a long if it has at most 62 bits.
+	// Subclasses may override this to compute in long arithmetic
+	// in the common case in which the approximations of the
+	// operands also fit, switching to BigIntegers (with the same
+	// intermediate results) where they do not. No BigIntegers
+	// are then allocated while evaluating small approximations.
+	// Must produce exactly the same result as approximate.
+	cached_appr approximate_appr(int precision) {
+		return new cached_appr(precision, approximate(precision));
+	}
+
+	// A scaled approximation together with the precision
+	// it was computed at. Immutable (but for the lazily
+	// created BigInteger, which is itself immutable), so
+	// that it can be published to other threads in a single
+	// write.
+	static final class cached_appr {
+		final int prec;
+		final long appr_long; // or no_long if it does not fit
+		private BigInteger appr;
+
+		cached_appr(int p, BigInteger a) {
+			prec = p;
+			appr = a;
+			appr_long = long_value(a);
+		}
+
+		// a must have at most 62 bits.
+		cached_appr(int p, long a) {
+			prec = p;
+			appr_long = a;
+		}
+
+		BigInteger appr() {
+			BigInteger result = appr;
+			if (result == null) {
+				result = BigInteger.valueOf(appr_long);
+				appr = result;
+			}
+			return result;
+		}
+
+		int signum() {
+			return appr_long != no_long ? Long.signum(appr_long) : appr.signum();
+		}
+
+		// |approximation| <= 1
+		boolean at_most_one() {
+			return appr_long >= -1 && appr_long <= 1;
+		}
+	}
+
+	transient volatile cached_appr appr_cache;
+	// The approximation with the smallest precision value
+	// with which the above has been called, or null.
+	// Readers take a single snapshot of this field, so
+	// concurrent evaluations of a shared CR never see a
+	// precision paired with another approximation.
+
+	static final AtomicReferenceFieldUpdater<CR, cached_appr> appr_cache_updater = AtomicReferenceFieldUpdater
+			.newUpdater(CR.class, cached_appr.class, "appr_cache");
+
+	// Publish a new approximation, unless another thread has
+	// meanwhile published one that is at least as precise.
+	void publish_appr(int precision, BigInteger appr) {
+		publish_appr(new cached_appr(precision, appr));
+	}
+
+	void publish_appr(cached_appr next) {
+		int precision = next.prec;
+		while (true) {
+			cached_appr current = appr_cache;
+			if (current != null && current.prec <= precision)
+				return;
+			if (appr_cache_updater.compareAndSet(this, current, next))
+				return;
+		}
+	}
 
 	// Helper functions
 	static int bound_log2(int n) {
@@ -235,6 +346,32 @@ public abstract class CR extends Number {
 		}
 	}
 
+	// Long version of the above, for approximations with at
+	// most 62 bits, so that sums and negations of them cannot
+	// overflow. Identical to the BigInteger version (>> rounds
+	// towards minus infinity, as shiftRight does), except that
+	// it returns no_long if the result would not fit.
+	static long scale(long k, int n) {
+		if (n >= 0) {
+			if (n > 62 || bit_length(k) + n > 62)
+				return no_long;
+			return k << n;
+		} else {
+			long adj_k = (k >> Math.min(-(n + 1), 63)) + 1;
+			return adj_k >> 1;
+		}
+	}
+
+	// Same as BigInteger.bitLength
+	static int bit_length(long k) {
+		return 64 - Long.numberOfLeadingZeros(k < 0 ? ~k : k);
+	}
+
+	// k as a long, or no_long if it does not fit.
+	static long long_value(BigInteger k) {
+		return k.bitLength() <= 62 ? k.longValue() : no_long;
+	}
+
 	// Identical to approximate(), but maintain and update cache.
 	/**
 	 * Returns value / 2 ** prec rounded to an integer. The error in the result is
@@ -245,50 +382,77 @@ public abstract class CR extends Number {
 	 */
 	public BigInteger get_appr(int precision) {
 		check_prec(precision);
-		if (appr_valid && precision >= min_prec) {
-			return scale(max_appr, min_prec - precision);
+		cached_appr cached = appr_cache;
+		if (cached != null && precision >= cached.prec) {
+			return scale(cached.appr(), cached.prec - precision);
 		} else {
-			BigInteger result = approximate(precision);
-			min_prec = precision;
-			max_appr = result;
-			appr_valid = true;
-			return result;
+			CRBudget.checkCurrentPrecision(precision);
+			cached_appr result = approximate_appr(precision);
+			publish_appr(result);
+			return result.appr();
+		}
+	}
+
+	// Identical to get_appr(), but returns a long, or no_long
+	// if the approximation does not fit in 62 bits.
+	// Used by approximate_appr.
+	long get_appr_long(int precision) {
+		check_prec(precision);
+		cached_appr cached = appr_cache;
+		if (cached != null && precision >= cached.prec) {
+			if (cached.appr_long != no_long)
+				return scale(cached.appr_long, cached.prec - precision);
+			return long_value(scale(cached.appr(), cached.prec - precision));
+		} else {
+			CRBudget.checkCurrentPrecision(precision);
+			cached_appr result = approximate_appr(precision);
+			publish_appr(result);
+			return result.appr_long;
 		}
 	}
 
 	public int get_prec() {
-		return min_prec;
+		cached_appr cached = appr_cache;
+		return cached == null ? 0 : cached.prec;
 	}
 
 	// Return the position of the msd.
 	// If x.msd() == n then
 	// 2**(n-1) < abs(x) < 2**(n+1)
-	// This initial version assumes that max_appr is valid
-	// and sufficiently removed from zero
+	// This initial version assumes that the cached approximation
+	// is valid and sufficiently removed from zero
 	// that the msd is determined.
 	int known_msd() {
+		return known_msd(appr_cache);
+	}
+
+	static int known_msd(cached_appr cached) {
 		int first_digit;
 		int length;
-		if (max_appr.signum() >= 0) {
-			length = max_appr.bitLength();
+		if (cached.appr_long != no_long) {
+			length = bit_length(Math.abs(cached.appr_long));
+		} else if (cached.appr.signum() >= 0) {
+			length = cached.appr.bitLength();
 		} else {
-			length = max_appr.negate().bitLength();
+			length = cached.appr.negate().bitLength();
 		}
-		first_digit = min_prec + length - 1;
+		first_digit = cached.prec + length - 1;
 		return first_digit;
 	}
 
 	// This version may return Integer.MIN_VALUE if the correct
 	// answer is < n.
 	int msd(int n) {
-		if (!appr_valid || max_appr.compareTo(big1) <= 0 && max_appr.compareTo(bigm1) >= 0) {
-			get_appr(n - 1);
-			if (max_appr.abs().compareTo(big1) <= 0) {
+		cached_appr cached = appr_cache;
+		if (cached == null || cached.at_most_one()) {
+			get_appr_long(n - 1);
+			cached = appr_cache;
+			if (cached.at_most_one()) {
 				// msd could still be arbitrarily far to the right.
 				return Integer.MIN_VALUE;
 			}
 		}
-		return known_msd();
+		return known_msd(cached);
 	}
 
 	// Functionally equivalent, but iteratively evaluates to higher
@@ -300,8 +464,7 @@ public abstract class CR extends Number {
 			if (msd != Integer.MIN_VALUE)
 				return msd;
 			check_prec(prec);
-			if (Thread.interrupted() || please_stop)
-				throw new AbortedError();
+			check_abort();
 		}
 		return msd(n);
 	}
@@ -409,8 +572,9 @@ public abstract class CR extends Number {
 	 * Equivalent to <TT>compareTo(CR.valueOf(0), a)</tt>
 	 */
 	public int signum(int a) {
-		if (appr_valid) {
-			int quick_try = max_appr.signum();
+		cached_appr cached = appr_cache;
+		if (cached != null) {
+			int quick_try = cached.signum();
 			if (0 != quick_try)
 				return quick_try;
 		}
@@ -805,30 +969,43 @@ abstract class slow_CR extends CR {
 
 	public BigInteger get_appr(int precision) {
 		check_prec(precision);
-		if (appr_valid && precision >= min_prec) {
-			return scale(max_appr, min_prec - precision);
+		cached_appr cached = appr_cache;
+		if (cached != null && precision >= cached.prec) {
+			return scale(cached.appr(), cached.prec - precision);
 		} else {
 			int eval_prec = (precision >= max_prec ? max_prec : (precision - prec_incr + 1) & ~(prec_incr - 1));
+			CRBudget.checkCurrentPrecision(eval_prec);
 			BigInteger result = approximate(eval_prec);
-			min_prec = eval_prec;
-			max_appr = result;
-			appr_valid = true;
+			publish_appr(eval_prec, result);
 			return scale(result, eval_prec - precision);
 		}
 	}
+
+	long get_appr_long(int precision) {
+		return long_value(get_appr(precision));
+	}
 }
 
 //Representation of an integer constant.  Private.
 class int_CR extends CR {
 	BigInteger value;
+	long long_value; // or no_long if value does not fit
 
 	int_CR(BigInteger n) {
 		value = n;
+		long_value = long_value(n);
 	}
 
 	protected BigInteger approximate(int p) {
 		return scale(value, -p);
 	}
+
+	cached_appr approximate_appr(int p) {
+		long result = (long_value == no_long ? no_long : scale(long_value, -p));
+		if (result == no_long)
+			return new cached_appr(p, approximate(p));
+		return new cached_appr(p, result);
+	}
 }
 
 // Representation of the sum of 2 constructive reals.  Private.
@@ -847,6 +1024,16 @@ class add_CR extends CR {
 		// final error is < 1 ulp.
 		return scale(op1.get_appr(p - 2).add(op2.get_appr(p - 2)), -2);
 	}
+
+	cached_appr approximate_appr(int p) {
+		long appr1 = op1.get_appr_long(p - 2);
+		long appr2 = op2.get_appr_long(p - 2);
+		if (appr1 == no_long || appr2 == no_long) {
+			// The operands are now cached.
+			return new cached_appr(p, approximate(p));
+		}
+		return new cached_appr(p, scale(appr1 + appr2, -2));
+	}
 }
 
 // Representation of a CR multiplied by 2**n
@@ -862,6 +1049,13 @@ class shifted_CR extends CR {
 	protected BigInteger approximate(int p) {
 		return op.get_appr(p - count);
 	}
+
+	cached_appr approximate_appr(int p) {
+		long appr = op.get_appr_long(p - count);
+		if (appr == no_long)
+			return new cached_appr(p, approximate(p));
+		return new cached_appr(p, appr);
+	}
 }
 
 // Representation of the negation of a constructive real.  Private.
@@ -875,6 +1069,13 @@ class neg_CR extends CR {
 	protected BigInteger approximate(int p) {
 		return op.get_appr(p).negate();
 	}
+
+	cached_appr approximate_appr(int p) {
+		long appr = op.get_appr_long(p);
+		if (appr == no_long || bit_length(-appr) > 62)
+			return new cached_appr(p, approximate(p));
+		return new cached_appr(p, -appr);
+	}
 }
 
 // Representation of:
@@ -883,7 +1084,9 @@ class neg_CR extends CR {
 // Assumes x = y if s = 0 
 class select_CR extends CR {
 	CR selector;
-	int selector_sign;
+	volatile int selector_sign;
+	// Only ever changes from 0 to the sign of selector,
+	// so racing updates agree.
 	CR op1;
 	CR op2;
 
@@ -928,28 +1131,27 @@ class mult_CR extends CR {
 		op2 = y;
 	}
 
-	protected BigInteger approximate(int p) {
+	// The operand larger in absolute value, which is evaluated
+	// second, or null if the product is small enough that zero
+	// will do as an approximation.
+	// Operands are swapped locally rather than in place,
+	// so that a shared product can be evaluated concurrently.
+	CR larger_op(int p) {
 		int half_prec = (p >> 1) - 1;
-		int msd_op1 = op1.msd(half_prec);
-		int msd_op2;
+		if (op1.msd(half_prec) != Integer.MIN_VALUE)
+			return op1;
+		if (op2.msd(half_prec) != Integer.MIN_VALUE)
+			return op2;
+		return null;
+	}
 
-		if (msd_op1 == Integer.MIN_VALUE) {
-			msd_op2 = op2.msd(half_prec);
-			if (msd_op2 == Integer.MIN_VALUE) {
-				// Product is small enough that zero will do as an
-				// approximation.
-				return big0;
-			} else {
-				// Swap them, so the larger operand (in absolute value)
-				// is first.
-				CR tmp;
-				tmp = op1;
-				op1 = op2;
-				op2 = tmp;
-				msd_op1 = msd_op2;
-			}
-		}
-		// msd_op1 is valid at this point.
+	protected BigInteger approximate(int p) {
+		CR op1 = larger_op(p);
+		if (op1 == null)
+			return big0;
+		CR op2 = (op1 == this.op1 ? this.op2 : this.op1);
+		int msd_op1 = op1.msd((p >> 1) - 1);
+		int msd_op2;
 		int prec2 = p - msd_op1 - 3; // Precision needed for op2.
 		// The appr. error is multiplied by at most
 		// 2 ** (msd_op1 + 1)
@@ -965,12 +1167,48 @@ class mult_CR extends CR {
 		int scale_digits = prec1 + prec2 - p;
 		return scale(appr1.multiply(appr2), scale_digits);
 	}
+
+	// As approximate, but using longs while the approximations
+	// fit, and continuing with the same precisions in BigIntegers
+	// once one does not.
+	cached_appr approximate_appr(int p) {
+		CR op1 = larger_op(p);
+		if (op1 == null)
+			return new cached_appr(p, 0);
+		CR op2 = (op1 == this.op1 ? this.op2 : this.op1);
+		int msd_op1 = op1.msd((p >> 1) - 1);
+		int prec2 = p - msd_op1 - 3;
+		long appr2 = op2.get_appr_long(prec2);
+		if (appr2 == 0)
+			return new cached_appr(p, 0);
+		int prec1 = p - op2.known_msd() - 3;
+		long appr1 = op1.get_appr_long(prec1);
+		int scale_digits = prec1 + prec2 - p;
+		long result = no_long;
+		if (appr1 != no_long && appr2 != no_long
+				&& bit_length(Math.abs(appr1)) + bit_length(Math.abs(appr2)) <= 62) {
+			result = scale(appr1 * appr2, scale_digits);
+		}
+		if (result != no_long)
+			return new cached_appr(p, result);
+		BigInteger big_appr1 = (appr1 != no_long ? BigInteger.valueOf(appr1) : op1.get_appr(prec1));
+		BigInteger big_appr2 = (appr2 != no_long ? BigInteger.valueOf(appr2) : op2.get_appr(prec2));
+		return new cached_appr(p, scale(big_appr1.multiply(big_appr2), scale_digits));
+	}
 }
 
 // Representation of the multiplicative invers of a constructive
-// real.  Private.  Should use Newton iteration to refine estimates.
+// real.  Private.  Uses Newton iteration to refine estimates
+// with many digits, and long division otherwise.
 class inv_CR extends CR {
 	CR op;
+	static int newton_threshold = 20000;
+	// Results needing more significant digits than this are
+	// refined from a cached approximation with about half as
+	// many digits. See CRBenchmark for the crossover point.
+	static final int min_newton_digits = 32;
+	// Below this, the half precision approximation would
+	// not be coarser than the requested one.
 
 	inv_CR(CR x) {
 		op = x;
@@ -980,6 +1218,9 @@ class inv_CR extends CR {
 		int msd = op.msd();
 		int inv_msd = 1 - msd;
 		int digits_needed = inv_msd - p + 3;
+		if (digits_needed > newton_threshold && digits_needed > min_newton_digits) {
+			return newton_approximate(p, msd);
+		}
 		// Number of SIGNIFICANT digits needed for
 		// argument, excl. msd position, which may
 		// be fictitious, since msd routine can be
@@ -1009,6 +1250,330 @@ class inv_CR extends CR {
 			return result;
 		}
 	}
+
+	// One Newton step y1 = y0 * (2 - x * y0) from the approximation
+	// y0 = (1/x) * (1 - e) at about half the precision.
+	// With the approximation x(1 + h) of x, this gives
+	// y1 = (1/x) * (1 - e**2 - h * (1 - e)**2).
+	// Let digits = 1 - msd - p, so that |1/x| < 2**(digits + p).
+	// prev_prec makes |e| < 2**(prev_prec + msd + 1), so that
+	// e**2 < 2**-(digits + 4), and op_prec makes
+	// |h| < 2**(op_prec - msd + 1) = 2**-(digits + 6).
+	// Thus the relative error is < 2**-(digits + 3), i.e. the
+	// error before rounding is < 1/8 ulp. All arithmetic below
+	// is exact, so the final rounding adds at most 1/2 ulp.
+	// get_appr(prev_prec) is usually already cached from an
+	// earlier, coarser request, and otherwise recursively halves
+	// the precision until long division is cheap.
+	BigInteger newton_approximate(int p, int msd) {
+		int digits = 1 - msd - p;
+		int prev_prec = -msd - 1 - ((digits + 5) >> 1);
+		int op_prec = msd - digits - 7;
+		BigInteger prev_appr = get_appr(prev_prec);
+		BigInteger op_appr = op.get_appr(op_prec);
+		// op_appr * prev_appr is (x * y0) * 2**scale_digits
+		int scale_digits = -op_prec - prev_prec;
+		BigInteger scaled_one = big1.shiftLeft(scale_digits);
+		BigInteger scaled_error = scaled_one.subtract(op_appr.multiply(prev_appr));
+		// y0 + y0 * (1 - x * y0), scaled by 2**(scale_digits - prev_prec)
+		BigInteger scaled_result = prev_appr.shiftLeft(scale_digits).add(prev_appr.multiply(scaled_error));
+		return scale(scaled_result, prev_prec - scale_digits - p);
+	}
+}
+
+// Binary splitting evaluation of series whose consecutive terms
+// have ratio t(n) / t(n-1) = p(n) / q(n) for integers p(n), q(n).
+// split(a, b) returns {P, Q, T} where P = p(a+1) * ... * p(b),
+// Q = q(a+1) * ... * q(b), and T / Q is the sum over a < n <= b
+// of p(a+1) * ... * p(n) / (q(a+1) * ... * q(n)).
+// This computes the sum exactly, using balanced products rather
+// than a full precision multiply and divide per term, and is thus
+// much faster at high precision for arguments with few bits.
+// Full precision arguments are handled by the bit-burst method:
+// the argument is split into chunks of doubling length, so that
+// each chunk has few bits and its series has few terms.
+// The {P, Q, T} of the first n terms do not depend on the
+// precision, so a node can keep them as a partial_sum and, when
+// more precision is requested, extend them with split(n, n')
+// rather than starting again.
+// Used above min_bits bits of precision. Private.
+abstract class series_splitter {
+	static int min_bits = 4000;
+	// See CRBenchmark for the crossover point.
+
+	abstract BigInteger p(int n);
+
+	abstract BigInteger q(int n);
+
+	BigInteger[] split(int a, int b) {
+		if (b - a == 1) {
+			BigInteger p = p(b);
+			return new BigInteger[] { p, q(b), p };
+		}
+		CR.check_abort();
+		int m = (a + b) >>> 1;
+		return merge(split(a, m), split(m, b));
+	}
+
+	// The exact result of split(0, n), or null if n == 0.
+	// Immutable.
+	static final class partial_sum {
+		final int n;
+		final BigInteger[] pqt;
+
+		partial_sum(int n, BigInteger[] pqt) {
+			this.n = n;
+			this.pqt = pqt;
+		}
+
+		// (Q + T) / Q, i.e. the sum of the first n + 1 terms
+		// divided by the first, scaled by 2**-w and rounded.
+		// The error is at most 1/2.
+		BigInteger sum(int w) {
+			if (n == 0)
+				return CR.big1.shiftLeft(-w);
+			return round_divide(pqt[1].add(pqt[2]).shiftLeft(-w), pqt[1]);
+		}
+	}
+
+	// A partial sum of this series of at least n terms, reusing
+	// prev (an earlier partial sum of this series, or null).
+	// Summing more terms than asked for only reduces the
+	// truncation error, so prev is returned as is if it is
+	// long enough.
+	partial_sum extend(partial_sum prev, int n) {
+		if (prev != null && prev.n >= n)
+			return prev;
+		if (n == 0)
+			return new partial_sum(0, null);
+		if (prev == null || prev.n == 0)
+			return new partial_sum(n, split(0, n));
+		return new partial_sum(n, merge(prev.pqt, split(prev.n, n)));
+	}
+
+	// The partial sums of the chunk series of the last bit-burst
+	// evaluation for a node. Later evaluations extend them for
+	// those chunks which recur, which is usually all but the last
+	// few, since successive approximations of the argument agree
+	// in their leading bits.
+	static final class chunk_memo {
+		// {c, s, partial_sum[]} for each chunk c * 2**-s
+		volatile List<Object[]> chunks = new ArrayList<Object[]>();
+
+		// A copy of the partial sums for the chunk of the last
+		// evaluation, or an array of nulls.
+		partial_sum[] find(List<Object[]> last, BigInteger c, int s, int count) {
+			for (Object[] chunk : last) {
+				if (((Integer) chunk[1]).intValue() == s && chunk[0].equals(c))
+					return ((partial_sum[]) chunk[2]).clone();
+			}
+			return new partial_sum[count];
+		}
+	}
+
+	// Combine the results for a < n <= m and m < n <= b.
+	static BigInteger[] merge(BigInteger[] left, BigInteger[] right) {
+		BigInteger p = left[0].multiply(right[0]);
+		BigInteger q = left[1].multiply(right[1]);
+		BigInteger t = left[2].multiply(right[1]).add(left[0].multiply(right[2]));
+		return new BigInteger[] { p, q, t };
+	}
+
+	// n / d rounded to the nearest integer, for d > 0.
+	static BigInteger round_divide(BigInteger n, BigInteger d) {
+		BigInteger[] qr = n.shiftLeft(1).add(d).divideAndRemainder(d.shiftLeft(1));
+		if (qr[1].signum() < 0)
+			return qr[0].subtract(CR.big1);
+		return qr[0];
+	}
+
+	// e such that |c * 2**-s| <= 2**e, for c != 0.
+	static int log2_bound(BigInteger c, int s) {
+		return c.abs().subtract(CR.big1).bitLength() - s;
+	}
+
+	static int floor_log2(long n) {
+		return 63 - Long.numberOfLeadingZeros(n);
+	}
+
+	// Split a * 2**-k into chunks c * 2**-s, the first holding the
+	// integer part and 8 fraction bits, each following one twice as
+	// many fraction bits as the one before. Returns {c, s, null}
+	// triples, omitting zero chunks. The chunks sum exactly to a * 2**-k.
+	static List<Object[]> bit_burst_chunks(BigInteger a, int k) {
+		List<Object[]> chunks = new ArrayList<Object[]>();
+		BigInteger abs_a = a.abs();
+		int lo = 0;
+		int hi = 8;
+		while (true) {
+			if (hi > k)
+				hi = k;
+			BigInteger c = shift(abs_a, hi - k);
+			if (lo > 0)
+				c = c.subtract(shift(abs_a, lo - k).shiftLeft(hi - lo));
+			if (c.signum() != 0)
+				chunks.add(new Object[] { a.signum() < 0 ? c.negate() : c, Integer.valueOf(hi), null });
+			if (hi >= k)
+				return chunks;
+			lo = hi;
+			hi = 2 * hi;
+		}
+	}
+
+	static BigInteger shift(BigInteger k, int n) {
+		return n < 0 ? k.shiftRight(-n) : k.shiftLeft(n);
+	}
+
+	// exp(c * 2**-s) * 2**-w, with error < 9/16,
+	// for |c * 2**-s| <= 1.
+	// sums[0] is the partial sum to extend, or null, and is
+	// replaced by the one used.
+	static BigInteger exp_chunk(final BigInteger c, final int s, int w, partial_sum[] sums) {
+		// Terms decrease by a factor of at least 2 after the
+		// first, so the tail after term n is < 2 * term(n + 1),
+		// where term(n) <= 2**(e * n) / n!.
+		// This truncation error is < 1/16.
+		int e = log2_bound(c, s);
+		int n = 0;
+		int log_term = 0;
+		while (true) {
+			int next = log_term + e - floor_log2(n + 1);
+			if (next + 1 <= w - 4)
+				break;
+			n++;
+			log_term = next;
+		}
+		sums[0] = new series_splitter() {
+			BigInteger p(int i) {
+				return c;
+			}
+
+			BigInteger q(int i) {
+				return BigInteger.valueOf(i).shiftLeft(s);
+			}
+		}.extend(sums[0], n);
+		return sums[0].sum(w);
+	}
+
+	// exp(a * 2**-k) * 2**-w with error < 5/8, for |a * 2**-k| <= 1
+	// and w <= 0.
+	// Each chunk's exponential is computed at working precision
+	// with error < 9/16, and the m of them are multiplied together.
+	// All partial products are < e, so the final error before
+	// rounding is < m * (e * 9/16 + 1/2) * e < 8 * m at working
+	// precision, which is < 1/8 at precision w. The final rounding
+	// adds 1/2.
+	// The chunk series are extended from, and recorded in, memo.
+	static BigInteger exp_bit_burst(BigInteger a, int k, int w, chunk_memo memo) {
+		List<Object[]> chunks = bit_burst_chunks(a, k);
+		List<Object[]> last = memo.chunks;
+		int working_prec = w - CR.bound_log2(8 * chunks.size()) - 3;
+		BigInteger result = CR.big1.shiftLeft(-working_prec);
+		for (Object[] chunk : chunks) {
+			BigInteger c = (BigInteger) chunk[0];
+			int s = (Integer) chunk[1];
+			partial_sum[] sums = memo.find(last, c, s, 1);
+			BigInteger factor = exp_chunk(c, s, working_prec, sums);
+			result = CR.scale(result.multiply(factor), working_prec);
+			chunk[2] = sums;
+		}
+		memo.chunks = chunks;
+		return CR.scale(result, working_prec - w);
+	}
+
+	// {cos(c * 2**-s), sin(c * 2**-s)} * 2**-w, each with
+	// error < 9/16, for |c * 2**-s| <= 2.
+	// sums holds the partial sums of the cos and sin series to
+	// extend, or nulls, and is updated to those used.
+	static BigInteger[] cos_sin_chunk(final BigInteger c, final int s, int w, partial_sum[] sums) {
+		// Both series alternate, with terms decreasing after the
+		// first, so the tail is smaller than the first omitted term,
+		// which is < 1/16.
+		int e = log2_bound(c, s);
+		final BigInteger minus_c_squared = c.multiply(c).negate();
+		int n_cos = 0;
+		int log_term = 0;
+		while (true) {
+			int next = log_term + 2 * e - floor_log2((2L * n_cos + 1) * (2L * n_cos + 2));
+			if (next <= w - 4)
+				break;
+			n_cos++;
+			log_term = next;
+		}
+		int n_sin = 0;
+		log_term = e;
+		while (true) {
+			int next = log_term + 2 * e - floor_log2((2L * n_sin + 2) * (2L * n_sin + 3));
+			if (next <= w - 4)
+				break;
+			n_sin++;
+			log_term = next;
+		}
+		sums[0] = new series_splitter() {
+			BigInteger p(int i) {
+				return minus_c_squared;
+			}
+
+			BigInteger q(int i) {
+				return BigInteger.valueOf((2L * i - 1) * (2L * i)).shiftLeft(2 * s);
+			}
+		}.extend(sums[0], n_cos);
+		BigInteger cos = sums[0].sum(w);
+		sums[1] = new series_splitter() {
+			BigInteger p(int i) {
+				return minus_c_squared;
+			}
+
+			BigInteger q(int i) {
+				return BigInteger.valueOf((2L * i) * (2L * i + 1)).shiftLeft(2 * s);
+			}
+		}.extend(sums[1], n_sin);
+		BigInteger sin;
+		if (sums[1].n == 0) {
+			sin = CR.scale(c, -s - w);
+		} else {
+			// c * (Q + T) / (Q * 2**s)
+			BigInteger[] pqt = sums[1].pqt;
+			BigInteger numerator = c.multiply(pqt[1].add(pqt[2]));
+			BigInteger denominator = pqt[1];
+			if (-s - w >= 0) {
+				numerator = numerator.shiftLeft(-s - w);
+			} else {
+				denominator = denominator.shiftLeft(s + w);
+			}
+			sin = round_divide(numerator, denominator);
+		}
+		return new BigInteger[] { cos, sin };
+	}
+
+	// {cos(a * 2**-k), sin(a * 2**-k)} * 2**-w, each with
+	// error < 5/8, for |a * 2**-k| <= 2 and w <= 0.
+	// Chunks are combined with the angle sum formulae. Each step
+	// multiplies the previous error by at most 1 + |sin(chunk)|,
+	// whose product over all chunks but the first is < 1.02, and adds
+	// at most 2 * 9/16 + 1/2. Thus the final error before rounding is
+	// < 4 * m at working precision, i.e. < 1/8 at precision w.
+	// The chunk series are extended from, and recorded in, memo.
+	static BigInteger[] cos_sin_bit_burst(BigInteger a, int k, int w, chunk_memo memo) {
+		List<Object[]> chunks = bit_burst_chunks(a, k);
+		List<Object[]> last = memo.chunks;
+		int working_prec = w - CR.bound_log2(4 * chunks.size()) - 3;
+		BigInteger cos = CR.big1.shiftLeft(-working_prec);
+		BigInteger sin = CR.big0;
+		for (Object[] chunk : chunks) {
+			BigInteger c = (BigInteger) chunk[0];
+			int s = (Integer) chunk[1];
+			partial_sum[] sums = memo.find(last, c, s, 2);
+			BigInteger[] cs = cos_sin_chunk(c, s, working_prec, sums);
+			chunk[2] = sums;
+			BigInteger next_cos = cos.multiply(cs[0]).subtract(sin.multiply(cs[1]));
+			BigInteger next_sin = sin.multiply(cs[0]).add(cos.multiply(cs[1]));
+			cos = CR.scale(next_cos, working_prec);
+			sin = CR.scale(next_sin, working_prec);
+		}
+		memo.chunks = chunks;
+		return new BigInteger[] { CR.scale(cos, working_prec - w), CR.scale(sin, working_prec - w) };
+	}
 }
 
 // Representation of the exponential of a constructive real.  Private.
@@ -1018,6 +1583,7 @@ class inv_CR extends CR {
 // appear to require precomputed information.
 class prescaled_exp_CR extends CR {
 	CR op;
+	final series_splitter.chunk_memo memo = new series_splitter.chunk_memo();
 
 	prescaled_exp_CR(CR x) {
 		op = x;
@@ -1035,6 +1601,12 @@ class prescaled_exp_CR extends CR {
 		int calc_precision = p - bound_log2(2 * iterations_needed) - 4; // for error in op, truncation.
 		int op_prec = p - 3;
 		BigInteger op_appr = op.get_appr(op_prec);
+		if (-p > series_splitter.min_bits && op_appr.abs().bitLength() <= -op_prec) {
+			// Error in argument results in error of < 3/8 ulp.
+			// Bit-burst error is < 5/64 ulp.
+			// Final rounding error is <= 1/2 ulp.
+			return scale(series_splitter.exp_bit_burst(op_appr, -op_prec, p - 3, memo), -3);
+		}
 		// Error in argument results in error of < 3/8 ulp.
 		// Sum of term eval. rounding error is < 1/16 ulp.
 		// Series truncation error < 1/16 ulp.
@@ -1046,8 +1618,7 @@ class prescaled_exp_CR extends CR {
 		int n = 0;
 		BigInteger max_trunc_error = big1.shiftLeft(p - 4 - calc_precision);
 		while (current_term.abs().compareTo(max_trunc_error) >= 0) {
-			if (Thread.interrupted() || please_stop)
-				throw new AbortedError();
+			check_abort();
 			n += 1;
 			/* current_term = current_term * op / n */
 			current_term = scale(current_term.multiply(op_appr), op_prec);
@@ -1062,6 +1633,7 @@ class prescaled_exp_CR extends CR {
 // Uses a Taylor series expansion.  Assumes |x| < 1.
 class prescaled_cos_CR extends slow_CR {
 	CR op;
+	final series_splitter.chunk_memo memo = new series_splitter.chunk_memo();
 
 	prescaled_cos_CR(CR x) {
 		op = x;
@@ -1079,6 +1651,12 @@ class prescaled_cos_CR extends slow_CR {
 		int calc_precision = p - bound_log2(2 * iterations_needed) - 4; // for error in op, truncation.
 		int op_prec = p - 2;
 		BigInteger op_appr = op.get_appr(op_prec);
+		if (-p > series_splitter.min_bits && op_appr.abs().bitLength() <= 1 - op_prec) {
+			// Error in argument results in error of < 1/4 ulp.
+			// Bit-burst error is < 5/64 ulp.
+			// Final rounding error is <= 1/2 ulp.
+			return scale(series_splitter.cos_sin_bit_burst(op_appr, -op_prec, p - 3, memo)[0], -3);
+		}
 		// Error in argument results in error of < 1/4 ulp.
 		// Cumulative arithmetic rounding error is < 1/16 ulp.
 		// Series truncation error < 1/16 ulp.
@@ -1091,8 +1669,7 @@ class prescaled_cos_CR extends slow_CR {
 		current_term = big1.shiftLeft(-calc_precision);
 		BigInteger current_sum = current_term;
 		while (current_term.abs().compareTo(max_trunc_error) >= 0) {
-			if (Thread.interrupted() || please_stop)
-				throw new AbortedError();
+			check_abort();
 			n += 2;
 			/* current_term = - current_term * op * op / n * (n - 1) */
 			current_term = scale(current_term.multiply(op_appr), op_prec);
@@ -1110,6 +1687,8 @@ class prescaled_cos_CR extends slow_CR {
 // This gives a simple and moderately fast way to compute PI.
 class integral_atan_CR extends slow_CR {
 	int op;
+	// The terms of the binary splitting series summed so far
+	volatile series_splitter.partial_sum terms;
 
 	integral_atan_CR(int x) {
 		op = x;
@@ -1118,6 +1697,8 @@ class integral_atan_CR extends slow_CR {
 	protected BigInteger approximate(int p) {
 		if (p >= 1)
 			return big0;
+		if (-p > series_splitter.min_bits && op >= 2)
+			return split_approximate(p);
 		int iterations_needed = -p / 2 + 2; // conservative estimate > 0.
 		// Claim: each intermediate term is accurate
 		// to 2*base^calc_precision.
@@ -1141,8 +1722,7 @@ class integral_atan_CR extends slow_CR {
 		int n = 1;
 		BigInteger max_trunc_error = big1.shiftLeft(p - 2 - calc_precision);
 		while (current_term.abs().compareTo(max_trunc_error) >= 0) {
-			if (Thread.interrupted() || please_stop)
-				throw new AbortedError();
+			check_abort();
 			n += 2;
 			current_power = current_power.divide(big_op_squared);
 			current_sign = -current_sign;
@@ -1151,11 +1731,47 @@ class integral_atan_CR extends slow_CR {
 		}
 		return scale(current_sum, calc_precision - p);
 	}
+
+	// The same series by binary splitting. Term j is
+	// (-1)**j / ((2j + 1) * op**(2j + 1)), so the ratio of terms
+	// is -(2j - 1) / ((2j + 1) * op**2), and the sum is
+	// (1 + T / Q) / op.
+	// Series truncation error < 1/4 ulp.
+	// Final rounding error is <= 1/2 ulp.
+	// The argument does not depend on p, so the terms summed
+	// for an earlier approximation are extended, not recomputed.
+	BigInteger split_approximate(int p) {
+		final BigInteger big_op_squared = BigInteger.valueOf((long) op * op);
+		int log_op = series_splitter.floor_log2(op);
+		int n = 0;
+		while ((2L * n + 3) * log_op < 2 - p)
+			n++;
+		series_splitter series = new series_splitter() {
+			BigInteger p(int j) {
+				return BigInteger.valueOf(1 - 2L * j);
+			}
+
+			BigInteger q(int j) {
+				return BigInteger.valueOf(2L * j + 1).multiply(big_op_squared);
+			}
+		};
+		series_splitter.partial_sum sum = series.extend(terms, n);
+		terms = sum;
+		if (sum.n == 0)
+			return series_splitter.round_divide(big1.shiftLeft(-p), BigInteger.valueOf(op));
+		BigInteger[] pqt = sum.pqt;
+		return series_splitter.round_divide(pqt[1].add(pqt[2]).shiftLeft(-p), pqt[1].multiply(BigInteger.valueOf(op)));
+	}
 }
 
 // Representation for ln(1 + op)
 class prescaled_ln_CR extends slow_CR {
 	CR op;
+	final series_splitter.chunk_memo memo = new series_splitter.chunk_memo();
+	static final int min_newton_bits = 256;
+	// Below this, rounding of the half precision request by
+	// slow_CR.get_appr may not leave it coarser than the
+	// requested precision.
 
 	prescaled_ln_CR(CR x) {
 		op = x;
@@ -1163,15 +1779,22 @@ class prescaled_ln_CR extends slow_CR {
 
 	// Compute an approximation of ln(1+x) to precision
 	// prec. This assumes |x| < 1/2.
-	// It uses a Taylor series expansion.
-	// Unfortunately there appears to be no way to take
-	// advantage of old information.
+	// Below series_splitter.min_bits bits it uses a Taylor
+	// series expansion.
 	// Note: this is known to be a bad algorithm for
 	// floating point. Unfortunately, other alternatives
 	// appear to require precomputed tabular information.
+	// Above it, a Newton step on exp (evaluated by binary
+	// splitting) refines the approximation to half the
+	// precision, which takes advantage of old information.
 	protected BigInteger approximate(int p) {
 		if (p >= 0)
 			return big0;
+		if (-p > series_splitter.min_bits && -p > min_newton_bits) {
+			BigInteger result = newton_approximate(p);
+			if (result != null)
+				return result;
+		}
 		int iterations_needed = -p; // conservative estimate > 0.
 		// Claim: each intermediate term is accurate
 		// to 2*2^calc_precision. Total error is
@@ -1189,8 +1812,7 @@ class prescaled_ln_CR extends slow_CR {
 		int current_sign = 1; // (-1)^(n-1)
 		BigInteger max_trunc_error = big1.shiftLeft(p - 4 - calc_precision);
 		while (current_term.abs().compareTo(max_trunc_error) >= 0) {
-			if (Thread.interrupted() || please_stop)
-				throw new AbortedError();
+			check_abort();
 			n += 1;
 			current_sign = -current_sign;
 			x_nth = scale(x_nth.multiply(op_appr), op_prec);
@@ -1200,6 +1822,31 @@ class prescaled_ln_CR extends slow_CR {
 		}
 		return scale(current_sum, calc_precision - p);
 	}
+
+	// One Newton step y1 = y0 + (1 + x) * exp(-y0) - 1 for
+	// exp(y) = 1 + x, from y0 = y + d at about half the
+	// precision, with exp computed by binary splitting.
+	// Exactly, y1 = y + exp(-d) - 1 + d, so the error is
+	// < d**2 < 2**(2 * prev_prec) <= 1/32 ulp.
+	// Error in op results in error of < 1/16 ulp, since
+	// exp(-y0) < 2.1.
+	// Error in exp(-y0) results in error of < 1/16 ulp.
+	// Final rounding error is <= 1/2 ulp.
+	// Returns null if |y0| > 1, which cannot happen for |x| < 1/2.
+	BigInteger newton_approximate(int p) {
+		int prev_prec = ((p - 3) >> 1) - 1;
+		int calc_precision = p - 6;
+		BigInteger prev_appr = get_appr(prev_prec);
+		if (prev_appr.abs().bitLength() > -prev_prec)
+			return null;
+		BigInteger op_appr = op.get_appr(calc_precision);
+		BigInteger exp_appr = series_splitter.exp_bit_burst(prev_appr.negate(), -prev_prec, calc_precision, memo);
+		// Scaled by 2**(-2 * calc_precision)
+		BigInteger scaled_prev = prev_appr.shiftLeft(prev_prec - 2 * calc_precision);
+		BigInteger scaled_product = big1.shiftLeft(-calc_precision).add(op_appr).multiply(exp_appr);
+		BigInteger scaled_result = scaled_prev.add(scaled_product).subtract(big1.shiftLeft(-2 * calc_precision));
+		return scale(scaled_result, 2 * calc_precision - p);
+	}
 }
 
 class sqrt_CR extends CR {
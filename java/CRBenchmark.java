@@ -0,0 +1,97 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/*
+ * Micro-benchmarks for the algorithm choices inside CR, used to pick the precision thresholds
+ * at which CR switches between algorithms. Each benchmark times the same approximation with
+ * the threshold forced each way, at 1k to 100k bits.
+ * Run with 'java CRBenchmark'.
+ */
+class CRBenchmark {
+
+	static final int[] BITS = { 1000, 2000, 5000, 10000, 20000, 50000, 100000 };
+
+	// Returns the least time in microseconds taken to compute the approximation of
+	// a freshly constructed constructive real to the given number of bits
+	static long time(IntFunction<CR> make, int bits) {
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (int i = 0; i < 50 && (i < 5 || total < 1000000000L); i++) {
+			CR x = make.apply(bits);
+			long start = System.nanoTime();
+			x.get_appr(-bits);
+			long t = System.nanoTime() - start;
+			best = Math.min(best, t);
+			total += t;
+		}
+		return best / 1000;
+	}
+
+	// Compares long division with Newton iteration (bottoming out in long division
+	// at 1000 bits) for reciprocals, both from scratch and when refining a cached
+	// approximation with half as many bits
+	static void inverse() {
+		Random random = new Random(1);
+		System.out.println("Reciprocal of a full-width operand (microseconds)");
+		System.out.println("bits\tdivision\tnewton\tdivision (refine)\tnewton (refine)");
+		int saved = CR.newton_threshold();
+		for (int bits : BITS) {
+			final CR op = CR.valueOf(new BigInteger(bits + 64, random).setBit(bits + 63)).shiftRight(bits + 64);
+			IntFunction<CR> fresh = b -> op.add(CR.valueOf(0)).inverse();
+			IntFunction<CR> refined = b -> {
+				CR inv = op.add(CR.valueOf(0)).inverse();
+				inv.get_appr(-b / 2);
+				return inv;
+			};
+			CR.set_newton_threshold(Integer.MAX_VALUE);
+			time(fresh, bits);
+			long division = time(fresh, bits);
+			long divisionRefine = time(refined, bits);
+			CR.set_newton_threshold(1000);
+			time(fresh, bits);
+			long newton = time(fresh, bits);
+			long newtonRefine = time(refined, bits);
+			System.out.println(bits + "\t" + division + "\t\t" + newton + "\t" + divisionRefine + "\t\t\t" + newtonRefine);
+		}
+		CR.set_newton_threshold(saved);
+	}
+
+	// Compares the term-by-term series with binary splitting for the elementary
+	// functions whose series are evaluated by series_splitter, and binary splitting
+	// when refining a cached approximation with 90% as many bits
+	static void series() {
+		System.out.println("Series evaluation, term-by-term / binary splitting / binary splitting (refine) (microseconds)");
+		System.out.println("bits\texp\t\tln\t\tcos\t\tpi");
+		int saved = CR.series_splitting_threshold();
+		final CR x = CR.valueOf(2).sqrt().subtract(CR.valueOf(1));
+		IntFunction<CR> exp = b -> x.add(CR.valueOf(0)).exp();
+		IntFunction<CR> ln = b -> x.add(CR.valueOf(1)).ln();
+		IntFunction<CR> cos = b -> x.add(CR.valueOf(0)).cos();
+		IntFunction<CR> pi = b -> CR.valueOf(16).multiply(CR.atan_reciprocal(5))
+				.subtract(CR.valueOf(4).multiply(CR.atan_reciprocal(239)));
+		for (int bits : BITS) {
+			StringBuilder line = new StringBuilder().append(bits);
+			for (IntFunction<CR> f : Arrays.asList(exp, ln, cos, pi)) {
+				CR.set_series_splitting_threshold(Integer.MAX_VALUE);
+				long term = time(f, bits);
+				CR.set_series_splitting_threshold(0);
+				long split = time(f, bits);
+				long refine = time(b -> {
+					CR y = f.apply(b);
+					y.get_appr(-b * 9 / 10);
+					return y;
+				}, bits);
+				line.append('\t').append(term).append(" / ").append(split).append(" / ").append(refine);
+			}
+			System.out.println(line);
+		}
+		CR.set_series_splitting_threshold(saved);
+	}
+
+	public static void main(String[] args) {
+		inverse();
+		series();
+	}
+}
@@ -0,0 +1,164 @@
+import java.util.function.Supplier;
+
+/**
+ * A cancellation scope for constructive real computations. A budget may carry a
+ * deadline and a limit on the number of bits of precision that may be requested,
+ * and may also be cancelled explicitly. Code run via <TT>call</tt> or <TT>run</tt>
+ * is subject to the budget: the series and precision-search loops in <TT>CR</tt>,
+ * and the search loops of the minimisers, check the budgets of the current thread
+ * and throw <TT>AbortedError</tt> once one of them is exceeded. Unlike setting
+ * <TT>CR.please_stop</tt>, this aborts only the computations run under the
+ * exceeded budget. Budgets nest: an inner scope is also subject to the budgets of
+ * the scopes enclosing it.
+ */
+public final class CRBudget {
+
+	// The budgets in force in a thread, innermost first
+	private static final class Scope {
+		final CRBudget budget;
+		final Scope enclosing;
+
+		Scope(CRBudget budget, Scope enclosing) {
+			this.budget = budget;
+			this.enclosing = enclosing;
+		}
+	}
+
+	private static final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+	private final boolean hasDeadline;
+	private final long deadline;
+	private final int minPrecision;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * A budget expiring after the given number of milliseconds and allowing
+	 * approximations to at most the given number of bits after the binary point. A
+	 * non-positive timeout means no deadline; Integer.MAX_VALUE bits means no
+	 * precision limit.
+	 */
+	public CRBudget(long timeoutMillis, int maxBits) {
+		hasDeadline = timeoutMillis > 0;
+		deadline = System.nanoTime() + timeoutMillis * 1000000;
+		minPrecision = (maxBits == Integer.MAX_VALUE ? Integer.MIN_VALUE : -maxBits);
+	}
+
+	/**
+	 * A budget expiring after the given number of milliseconds.
+	 */
+	public static CRBudget withTimeout(long timeoutMillis) {
+		return new CRBudget(timeoutMillis, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * A budget with neither deadline nor precision limit, which only aborts when
+	 * cancelled.
+	 */
+	public static CRBudget unlimited() {
+		return new CRBudget(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Abort all computations running under this budget, from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * True if this budget has been cancelled or its deadline has passed.
+	 */
+	public boolean isExpired() {
+		return cancelled || (hasDeadline && System.nanoTime() - deadline >= 0);
+	}
+
+	/**
+	 * Throw AbortedError if this budget has been cancelled or its deadline has
+	 * passed.
+	 */
+	public void check() {
+		if (cancelled)
+			throw new AbortedError("cancelled");
+		if (hasDeadline && System.nanoTime() - deadline >= 0)
+			throw new AbortedError("deadline exceeded");
+	}
+
+	/**
+	 * Throw AbortedError if an approximation to the given precision would exceed
+	 * this budget's precision limit.
+	 */
+	public void checkPrecision(int precision) {
+		if (precision < minPrecision)
+			throw new AbortedError("precision limit exceeded");
+	}
+
+	/**
+	 * Run the computation under this budget in the current thread, returning its
+	 * result.
+	 */
+	public <T> T call(Supplier<T> computation) {
+		Scope enclosing = scopes.get();
+		scopes.set(new Scope(this, enclosing));
+		try {
+			return computation.get();
+		} finally {
+			scopes.set(enclosing);
+		}
+	}
+
+	/**
+	 * Run the computation under this budget in the current thread.
+	 */
+	public void run(Runnable computation) {
+		call(() -> {
+			computation.run();
+			return null;
+		});
+	}
+
+	/**
+	 * The innermost budget in force in the current thread, or null if none.
+	 */
+	public static CRBudget current() {
+		Scope scope = scopes.get();
+		return scope == null ? null : scope.budget;
+	}
+
+	/**
+	 * Returns a computation which runs the given one under the budgets in force in
+	 * the current thread, for handing work to other threads.
+	 */
+	public static Runnable propagate(Runnable computation) {
+		final Scope captured = scopes.get();
+		return () -> {
+			Scope enclosing = scopes.get();
+			scopes.set(captured);
+			try {
+				computation.run();
+			} finally {
+				scopes.set(enclosing);
+			}
+		};
+	}
+
+	/**
+	 * Throw AbortedError if any budget in force in the current thread has been
+	 * cancelled or has passed its deadline.
+	 */
+	public static void checkCurrent() {
+		for (Scope scope = scopes.get(); scope != null; scope = scope.enclosing) {
+			scope.budget.check();
+		}
+	}
+
+	/**
+	 * Throw AbortedError if an approximation to the given precision would exceed
+	 * the precision limit of any budget in force in the current thread.
+	 */
+	public static void checkCurrentPrecision(int precision) {
+		for (Scope scope = scopes.get(); scope != null; scope = scope.enclosing) {
+			scope.budget.checkPrecision(precision);
+		}
+	}
+
+}
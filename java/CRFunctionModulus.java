@@ -1,6 +1,11 @@
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javafx.util.Pair;
@@ -14,17 +19,297 @@ import javafx.util.Pair;
  */
 public abstract class CRFunctionModulus {
 
+	// The number of significant bits in the bound on a modulus used to size the
+	// output codes, and the least precision at which a modulus is ever evaluated
+	static final int modulus_bits = 32;
+	static final int min_modulus_floor = -(1 << 26);
+	// The exponent of the step of the central differences approximating the
+	// derivatives of functions without automatic differentiation
+	static final int difference_step = -20;
+
 	abstract public CR function(List<CR> xs);
 
 	abstract public CR modulus(List<CR> xs, List<CR> es);
 
-	// Gives the next biggest n such that {c} <= 2^n
+	// Returns the pair (function(xs), modulus(xs,es)), computed in a single traversal
+	// in which the value and modulus of every sub-function are computed once and the
+	// resulting CR objects are shared by all the nodes using them
+	public Pair<CR, CR> evaluate(List<CR> xs, List<CR> es) {
+		return evaluate(xs, es, new IdentityHashMap<>());
+	}
+
+	// As above, looking up and recording the value and modulus of each sub-function
+	// in memo, which is specific to xs and es
+	public Pair<CR, CR> evaluate(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		Pair<CR, CR> result = memo.get(this);
+		if (result == null) {
+			result = evaluateNode(xs, es, memo);
+			memo.put(this, result);
+		}
+		return result;
+	}
+
+	// Computes the pair (function(xs), modulus(xs,es)) for this node, evaluating
+	// sub-functions through evaluate(xs, es, memo); subclasses with sub-functions
+	// should override this, as by default the two are computed separately
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return new Pair<>(function(xs), modulus(xs, es));
+	}
+
+	// Returns the pair (function(xs), gradient of the function at xs), computed
+	// together in a single traversal by forward-mode automatic differentiation;
+	// entries of the gradient are null where the partial derivative is identically
+	// zero. Sub-functions of classes without a gradientNode override are
+	// differentiated by central differences, which only approximate the gradient
+	public Pair<CR, CR[]> gradient(List<CR> xs) {
+		return gradient(xs, new IdentityHashMap<>());
+	}
+
+	// As above, looking up and recording the value and gradient of each
+	// sub-function in memo, which is specific to xs
+	public Pair<CR, CR[]> gradient(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		Pair<CR, CR[]> result = memo.get(this);
+		if (result == null) {
+			result = gradientNode(xs, memo);
+			memo.put(this, result);
+		}
+		return result;
+	}
+
+	// Computes the value and gradient of this node, differentiating sub-functions
+	// through gradient(xs, memo); subclasses should override this, as by default
+	// the partial derivatives are approximated by central differences of function()
+	// with step 2^difference_step, which is good enough for the heuristics the
+	// gradient guides but not exact
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		CR[] gradient = new CR[xs.size()];
+		CR step = CR.one.shiftLeft(difference_step);
+		for (int i = 0; i < gradient.length; i++) {
+			List<CR> above = new ArrayList<>(xs);
+			List<CR> below = new ArrayList<>(xs);
+			above.set(i, xs.get(i).add(step));
+			below.set(i, xs.get(i).subtract(step));
+			gradient[i] = function(above).subtract(function(below)).shiftLeft(-difference_step - 1);
+		}
+		return new Pair<>(function(xs), gradient);
+	}
+
+	// Returns an approximation of function(xs) computed in double arithmetic; this
+	// is not rigorous, and is meant for heuristics only; by default the function is
+	// evaluated as a CR and rounded
+	public double functionDouble(double[] xs) {
+		return function(toCRs(xs)).doubleValue();
+	}
+
+	// Returns approximations of the value and partial derivatives of the function at
+	// xs, as {f, df/dx_0, .., df/dx_n}, computed in double arithmetic; this is not
+	// rigorous, and is meant for heuristics only; by default the gradient is
+	// evaluated as CRs and rounded
+	public double[] valueGradientDouble(double[] xs) {
+		Pair<CR, CR[]> vg = gradient(toCRs(xs));
+		double[] result = new double[xs.length + 1];
+		result[0] = vg.getKey().doubleValue();
+		for (int i = 0; i < xs.length; i++) {
+			result[i + 1] = vg.getValue()[i] == null ? 0.0 : vg.getValue()[i].doubleValue();
+		}
+		return result;
+	}
+
+	private static List<CR> toCRs(double[] xs) {
+		List<CR> crs = new ArrayList<>();
+		for (double x : xs) {
+			crs.add(CR.valueOf(x));
+		}
+		return crs;
+	}
+
+	// Returns the sum of two gradients
+	protected static CR[] addGradients(CR[] a, CR[] b) {
+		CR[] sum = new CR[a.length];
+		for (int i = 0; i < a.length; i++) {
+			sum[i] = a[i] == null ? b[i] : b[i] == null ? a[i] : a[i].add(b[i]);
+		}
+		return sum;
+	}
+
+	// Returns a gradient multiplied by c
+	protected static CR[] scaleGradient(CR c, CR[] a) {
+		CR[] scaled = new CR[a.length];
+		for (int i = 0; i < a.length; i++) {
+			scaled[i] = a[i] == null ? null : a[i] == CR.one ? c : c.multiply(a[i]);
+		}
+		return scaled;
+	}
+
+	// Returns the gradient of the i-th of n inputs
+	protected static CR[] unitGradient(int n, int i) {
+		CR[] unit = new CR[n];
+		unit[i] = CR.one;
+		return unit;
+	}
+
+	// Returns {value, modulus}, double intervals enclosing function(xs) and
+	// modulus(xs,es) for all xs and es in the given intervals; subclasses should
+	// override this, as by default nothing is known about either
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		return new DoubleInterval[] { DoubleInterval.ENTIRE, DoubleInterval.ENTIRE };
+	}
+
+	// Returns {value, df/dx_0, .., df/dx_n}, double intervals enclosing function(xs)
+	// and its partial derivatives for all xs in the given intervals, computed by
+	// forward-mode automatic differentiation in interval arithmetic; where the
+	// function is not differentiable (at zeros of absolute values), the entries
+	// contain all its one-sided partial derivatives; subclasses should override
+	// this, as by default nothing is known
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[] result = new DoubleInterval[xs.length + 1];
+		Arrays.fill(result, DoubleInterval.ENTIRE);
+		return result;
+	}
+
+	// Returns {value, modulus}, the exact values of function(xs) and modulus(xs,es),
+	// or null if the function is not built from ring operations (and absolute
+	// values) on dyadic constants and inputs; subclasses of this kind should
+	// override this, as by default null is returned
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		return null;
+	}
+
+	// Returns H, double intervals enclosing the value and the first and second
+	// partial derivatives of the function for all xs in the given intervals, with
+	// H[0][0] = f, H[0][i+1] = H[i+1][0] = df/dx_i and H[i+1][j+1] = d2f/dx_idx_j,
+	// computed by second-order forward-mode automatic differentiation in interval
+	// arithmetic; subclasses should override this, as by default nothing is known
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		DoubleInterval[][] result = new DoubleInterval[xs.length + 1][xs.length + 1];
+		for (DoubleInterval[] row : result)
+			Arrays.fill(row, DoubleInterval.ENTIRE);
+		return result;
+	}
+
+	// Returns the H of hessianInterval() for a constant with value enclosed by c
+	protected static DoubleInterval[][] constantHessian(int n, DoubleInterval c) {
+		DoubleInterval[][] result = new DoubleInterval[n + 1][n + 1];
+		for (DoubleInterval[] row : result)
+			Arrays.fill(row, DoubleInterval.ZERO);
+		result[0][0] = c;
+		return result;
+	}
+
+	// Returns the H of hessianInterval() for the i-th of the inputs xs
+	protected static DoubleInterval[][] inputHessian(DoubleInterval[] xs, int i) {
+		DoubleInterval[][] result = constantHessian(xs.length, xs[i]);
+		result[0][i + 1] = new DoubleInterval(1, 1);
+		result[i + 1][0] = result[0][i + 1];
+		return result;
+	}
+
+	// Returns the H of hessianInterval() for the sum of two functions
+	protected static DoubleInterval[][] addHessians(DoubleInterval[][] f, DoubleInterval[][] g) {
+		DoubleInterval[][] result = new DoubleInterval[f.length][f.length];
+		for (int a = 0; a < f.length; a++) {
+			for (int b = 0; b < f.length; b++) {
+				result[a][b] = f[a][b].add(g[a][b]);
+			}
+		}
+		return result;
+	}
+
+	// Returns the H of hessianInterval() for the product of two functions, where
+	// (fg)_ij = f_ij g + f_i g_j + f_j g_i + f g_ij
+	protected static DoubleInterval[][] multiplyHessians(DoubleInterval[][] f, DoubleInterval[][] g) {
+		DoubleInterval[][] result = new DoubleInterval[f.length][f.length];
+		result[0][0] = f[0][0].multiply(g[0][0]);
+		for (int i = 1; i < f.length; i++) {
+			result[0][i] = f[0][i].multiply(g[0][0]).add(f[0][0].multiply(g[0][i]));
+			result[i][0] = result[0][i];
+		}
+		for (int i = 1; i < f.length; i++) {
+			for (int j = i; j < f.length; j++) {
+				result[i][j] = f[i][j].multiply(g[0][0]).add(f[0][i].multiply(g[0][j]))
+						.add(f[0][j].multiply(g[0][i])).add(f[0][0].multiply(g[i][j]));
+				result[j][i] = result[i][j];
+			}
+		}
+		return result;
+	}
+
+	// Returns a Taylor model of the function over the box of the given models of
+	// the inputs, or null if the function is not built from ring operations (and
+	// absolute values) on constants and inputs; subclasses of this kind should
+	// override this, as by default null is returned
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		return null;
+	}
+
+	// Returns n zero distances, for computing the value alone through
+	// evaluateDyadic()
+	protected static Dyadic[] zeros(int n) {
+		Dyadic[] zeros = new Dyadic[n];
+		Arrays.fill(zeros, Dyadic.ZERO);
+		return zeros;
+	}
+
+	// Gives the next biggest n such that {c} <= 2^n, for {c} > 0
+	// n is at most one more than the least such n
 	public int nearestPowOfTwo(CR c) {
-		return c.ln().divide(CR.two.ln()).add(CR.valueOf(0.5)).intValue();
+		return upperBound(c, c.msd() - 2).ceilLog2();
+	}
+
+	// As above, but giving at most floor if {c} < 2^floor, e.g. if {c} = 0
+	public int nearestPowOfTwo(CR c, int floor) {
+		return upperBound(c, floor).ceilLog2();
+	}
+
+	// Gives a dyadic upper bound on |{c}| with modulus_bits significant bits, or at
+	// most 2^floor if |{c}| < 2^floor, without evaluating beyond precision floor
+	// The approximation a of {c} at precision p is within 1, so |{c}| < (|a|+1)*2^p
+	protected static Dyadic upperBound(CR c, int floor) {
+		int msd = c.iter_msd(floor);
+		if (msd == Integer.MIN_VALUE)
+			return new Dyadic(BigInteger.ONE, floor);
+		int precision = msd - modulus_bits;
+		return new Dyadic(c.get_appr(precision).abs().add(BigInteger.ONE), precision);
+	}
+
+	// Gives the least exponent considered for the modulus on the given inputs, far
+	// below the fourth power of the narrowest input width, so that zero or tiny
+	// moduli are found quickly while the output codes of narrow inputs stay fine
+	protected static int modulusFloor(List<CRIntervalCode> xs) {
+		int precision = 0;
+		for (CRIntervalCode x : xs)
+			precision = Math.min(precision, x.getPrecision());
+		return (int) Math.max(4L * precision - 2 * modulus_bits, min_modulus_floor);
+	}
+
+	// Emits the tape instructions computing the value and modulus of this function,
+	// returning their slots {value, modulus}; subclasses should override this, as by
+	// default the function is called as a whole
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		return tape.opaque(this);
+	}
+
+	// Returns this function compiled into a straight-line evaluation tape, for
+	// repeated evaluation
+	public CRFunctionTape compile() {
+		return new CRFunctionTape(this);
+	}
+
+	// Returns a CR object representing half the width of the interval, i.e. the
+	// distance from its centre to its ends
+	protected static CR halfWidth(CRIntervalCode x) {
+		return CR.one.shiftLeft(x.getPrecision() - 1);
 	}
 
 	// Returns the output of function(xs)
 	public CR applyCR(List<CRIntervalCode> xs) {
+		Dyadic[] exactCentres = new Dyadic[xs.size()];
+		for (int i = 0; i < exactCentres.length; i++) {
+			exactCentres[i] = Dyadic.of(xs.get(i));
+		}
+		Dyadic[] exact = evaluateDyadic(exactCentres, zeros(exactCentres.length));
+		if (exact != null)
+			return exact[0].getCR();
 		List<CR> centres = xs.stream().map(x -> x.getCR()).collect(Collectors.toList());
 		return function(centres);
 	}
@@ -32,10 +317,189 @@ public abstract class CRFunctionModulus {
 	// Gives back a list of intervals representing the whole output space of the
 	// function given an input interval (computed via the modulus)
 	public List<CRIntervalCode> apply(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> exact = applyDyadic(xs);
+		if (exact != null)
+			return exact;
 		List<CR> centres = xs.stream().map(x -> x.getCR()).collect(Collectors.toList());
-		List<CR> distances = xs.stream().map(x -> CR.two.pow(x.getPrecision() - 1)).collect(Collectors.toList());
-		int outPrecision = nearestPowOfTwo(modulus(centres, distances)) - 1;
-		CR fxs = function(centres);
+		List<CR> distances = xs.stream().map(x -> halfWidth(x)).collect(Collectors.toList());
+		Pair<CR, CR> valueModulus = evaluate(centres, distances);
+		return outputCodes(valueModulus.getKey(), valueModulus.getValue(), modulusFloor(xs));
+	}
+
+	// Gives back the list of intervals of apply(), computed from the exact value
+	// and modulus of evaluateDyadic() with no approximation, or null if these are
+	// not available
+	protected List<CRIntervalCode> applyDyadic(List<CRIntervalCode> xs) {
+		Dyadic[] centres = new Dyadic[xs.size()];
+		Dyadic[] distances = new Dyadic[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = Dyadic.of(xs.get(i));
+			distances[i] = new Dyadic(BigInteger.ONE, xs.get(i).getPrecision() - 1);
+		}
+		Dyadic[] valueModulus = evaluateDyadic(centres, distances);
+		if (valueModulus == null)
+			return null;
+		return outputCodes(valueModulus[0], valueModulus[1]);
+	}
+
+	// Gives back a list of intervals representing the whole output space of the
+	// function given an input interval, as apply() does, but computed in double
+	// interval arithmetic; returns null if the double enclosure is out of range or
+	// is not much tighter than the rounding errors in it, in which case apply()
+	// should be used
+	public List<CRIntervalCode> applyInterval(List<CRIntervalCode> xs) {
+		DoubleInterval[] centres = new DoubleInterval[xs.size()];
+		DoubleInterval[] distances = new DoubleInterval[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = DoubleInterval.of(xs.get(i).getBigInt(), xs.get(i).getPrecision());
+			distances[i] = DoubleInterval.of(BigInteger.ONE, xs.get(i).getPrecision() - 1);
+		}
+		DoubleInterval[] valueModulus = evaluateInterval(centres, distances);
+		DoubleInterval value = valueModulus[0];
+		double modulus = valueModulus[1].getUpper();
+		if (!value.isFinite() || !(modulus < Double.POSITIVE_INFINITY) || !(value.width() <= modulus / 16))
+			return null;
+		return outputCodes(value.widen(modulus));
+	}
+
+	// Gives back a list of intervals representing the whole output space of the
+	// function given an input interval, computed cheaply in double interval
+	// arithmetic only: by applyInterval() where this is precise enough, and
+	// otherwise by the interval extension of the function over the inputs, widened
+	// so that the codes fit in a double; returns null if neither is finite. The
+	// enclosure may be much looser than that of apply()
+	public List<CRIntervalCode> applyEstimate(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> result = applyInterval(xs);
+		if (result != null)
+			return result;
+		DoubleInterval[] boxes = new DoubleInterval[xs.size()];
+		DoubleInterval[] distances = new DoubleInterval[xs.size()];
+		for (int i = 0; i < boxes.length; i++) {
+			boxes[i] = DoubleInterval.of(xs.get(i));
+			distances[i] = DoubleInterval.ZERO;
+		}
+		DoubleInterval value = evaluateInterval(boxes, distances)[0];
+		if (!value.isFinite())
+			return null;
+		return outputCodes(value.widen(Math.scalb(value.magnitude(), -48)));
+	}
+
+	// Gives back a list of intervals representing the whole output space of the
+	// function given an input interval, by the centred (mean value) form: the
+	// output is within Sum_i e_i*sup|df/dx_i| of the value at the centre, where e_i
+	// are the half-widths of the inputs and the partial derivatives are bounded over
+	// the inputs by gradientInterval(); its overestimate of the output shrinks with
+	// the square of the widths. The value at the centre is computed in double
+	// interval arithmetic where this is precise enough, and otherwise exactly or as
+	// a CR; returns null if the partial derivatives are not bounded
+	public List<CRIntervalCode> applyCentred(List<CRIntervalCode> xs) {
+		DoubleInterval[] boxes = new DoubleInterval[xs.size()];
+		for (int i = 0; i < boxes.length; i++) {
+			boxes[i] = DoubleInterval.of(xs.get(i));
+		}
+		DoubleInterval[] gradient = gradientInterval(boxes);
+		DoubleInterval radius = DoubleInterval.ZERO;
+		for (int i = 0; i < boxes.length; i++) {
+			DoubleInterval e = DoubleInterval.of(BigInteger.ONE, xs.get(i).getPrecision() - 1);
+			radius = radius.add(gradient[i + 1].abs().multiply(e));
+		}
+		double r = radius.getUpper();
+		if (!(r < Double.POSITIVE_INFINITY))
+			return null;
+		DoubleInterval[] centres = new DoubleInterval[xs.size()];
+		DoubleInterval[] distances = new DoubleInterval[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = DoubleInterval.of(xs.get(i).getBigInt(), xs.get(i).getPrecision());
+			distances[i] = DoubleInterval.ZERO;
+		}
+		DoubleInterval value = evaluateInterval(centres, distances)[0];
+		if (value.isFinite() && value.width() <= r / 16) {
+			List<CRIntervalCode> codes = outputCodes(value.widen(r));
+			if (codes != null)
+				return codes;
+		}
+		Dyadic[] exactCentres = new Dyadic[xs.size()];
+		for (int i = 0; i < exactCentres.length; i++) {
+			exactCentres[i] = Dyadic.of(xs.get(i));
+		}
+		Dyadic[] exact = evaluateDyadic(exactCentres, zeros(exactCentres.length));
+		if (exact != null)
+			return outputCodes(exact[0], Dyadic.of(r));
+		int outPrecision = r == 0 ? modulusFloor(xs) : Dyadic.of(r).ceilLog2() + 1;
+		return outputCodes(applyCR(xs), outPrecision);
+	}
+
+	// Gives back a list of intervals representing the whole output space of the
+	// function given an input interval, by bounding a Taylor model of the function
+	// of the given order over the inputs; returns null if there is no Taylor model
+	public List<CRIntervalCode> applyTaylor(List<CRIntervalCode> xs, int order) {
+		Dyadic[] centres = new Dyadic[xs.size()];
+		Dyadic[] halfWidths = new Dyadic[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = Dyadic.of(xs.get(i));
+			halfWidths[i] = new Dyadic(BigInteger.ONE, xs.get(i).getPrecision() - 1);
+		}
+		TaylorModel[] models = new TaylorModel[xs.size()];
+		for (int i = 0; i < models.length; i++) {
+			models[i] = TaylorModel.variable(i, centres, halfWidths, order);
+		}
+		TaylorModel model = taylorModel(models);
+		if (model == null)
+			return null;
+		Dyadic[] range = model.bound();
+		return outputCodes(range[0].add(range[1]).shiftLeft(-1), range[1].subtract(range[0]).shiftLeft(-1));
+	}
+
+	// Gives back the three interval codes representing the whole output space,
+	// given the exact output at the centre of the input interval and the modulus
+	// k is fxs*2^-q rounded to nearest, i.e. within 2^(q-1) of fxs*2^-q, so the
+	// codes (k-1,q), (k,q), (k+1,q), covering [(k-3/2)*2^q, (k+3/2)*2^q], contain
+	// fxs +- 2^q, and q is the least such that the modulus is at most 2^q; if the
+	// modulus is zero, fxs is k*2^q
+	protected List<CRIntervalCode> outputCodes(Dyadic fxs, Dyadic modulus) {
+		int outPrecision = modulus.signum() == 0 ? fxs.getExponent() : modulus.ceilLog2();
+		BigInteger mid = fxs.round(outPrecision);
+		List<CRIntervalCode> list = new ArrayList<>();
+		list.add(new CRIntervalCode(mid.subtract(BigInteger.ONE), outPrecision));
+		list.add(new CRIntervalCode(mid, outPrecision));
+		list.add(new CRIntervalCode(mid.add(BigInteger.ONE), outPrecision));
+		return list;
+	}
+
+	// Gives back the three interval codes (k-1,q), (k,q), (k+1,q) covering the
+	// given interval, or null if k does not fit in a double; the codes cover
+	// [(k-3/2)*2^q, (k+3/2)*2^q], so q is the least such that 2^q is at least half
+	// the width of the interval, or one more if the interval straddles badly
+	protected List<CRIntervalCode> outputCodes(DoubleInterval y) {
+		for (int q = Math.getExponent(y.width()); q <= Math.getExponent(y.width()) + 1; q++) {
+			double k = Math.ceil(Math.scalb(y.getUpper(), -q) - 1.5);
+			if (!(Math.abs(k) < 0x1p50))
+				return null;
+			// Both end-points are exact, as k has few enough bits
+			if (Math.scalb(k - 1.5, q) <= y.getLower() && y.getUpper() <= Math.scalb(k + 1.5, q)) {
+				BigInteger mid = BigInteger.valueOf((long) k);
+				List<CRIntervalCode> list = new ArrayList<>();
+				list.add(new CRIntervalCode(mid.subtract(BigInteger.ONE), q));
+				list.add(new CRIntervalCode(mid, q));
+				list.add(new CRIntervalCode(mid.add(BigInteger.ONE), q));
+				return list;
+			}
+		}
+		return null;
+	}
+
+	// Gives back the three interval codes representing the whole output space,
+	// given the output at the centre of the input interval and the modulus
+	// The approximation k of fxs at precision q is within 2^q, so the codes
+	// (k-1,q), (k,q), (k+1,q), covering [(k-3/2)*2^q, (k+3/2)*2^q], contain
+	// fxs +- 2^(q-1), and q is chosen so that the modulus is at most 2^(q-1)
+	// The modulus is bounded from the bit length of an approximation, below 2^floor
+	protected List<CRIntervalCode> outputCodes(CR fxs, CR modulus, int floor) {
+		return outputCodes(fxs, nearestPowOfTwo(modulus, floor) + 1);
+	}
+
+	// As above, given the precision level q of the codes
+	protected List<CRIntervalCode> outputCodes(CR fxs, int outPrecision) {
 		CRIntervalCode low = new CRIntervalCode(fxs.get_appr(outPrecision).subtract(BigInteger.ONE), outPrecision);
 		CRIntervalCode mid = new CRIntervalCode(fxs.get_appr(outPrecision), outPrecision);
 		CRIntervalCode upp = new CRIntervalCode(fxs.get_appr(outPrecision).add(BigInteger.ONE), outPrecision);
@@ -51,6 +515,11 @@ public abstract class CRFunctionModulus {
 		return new constant_CRFunctionModulus(y);
 	}
 
+	// As above, for a constant given as a double, whose exact value is known
+	public static final CRFunctionModulus constant(double y) {
+		return new constant_CRFunctionModulus(Dyadic.of(y));
+	}
+
 	// Returns a function representing the constant function \{x_0..x_n}.x_i
 	public static final CRFunctionModulus proj(int i) {
 		return new proj_CRFunctionModulus(i);
@@ -65,13 +534,15 @@ public abstract class CRFunctionModulus {
 
 	// Returns a function representing the power function
 	// \{x_0..x_n}.(x_i)^j for given i <= n and n >= 0
+	// For even j both factors are the same object, so that evaluate() computes
+	// them once
 	public static final CRFunctionModulus pow(int i, int j) {
-		CRFunctionModulus f = constant(CR.one);
+		CRFunctionModulus f = constant(1.0);
 		if (j == 1)
 			f = proj(i);
 		if (j > 1) {
 			CRFunctionModulus g = pow(i, j / 2);
-			CRFunctionModulus h = pow(i, j - (j / 2));
+			CRFunctionModulus h = (j % 2 == 0) ? g : pow(i, j - (j / 2));
 			f = new timesFG_CRFunctionModulus(g, h);
 		}
 		return f;
@@ -83,27 +554,64 @@ public abstract class CRFunctionModulus {
 	// [l.get(i).getKey(),l.get(i).getValue.getKey(),l.get(i).getValue().getValue()]
 	public static CRFunctionModulus polynomial(List<Pair<Double, Pair<Integer, Integer>>> l) {
 		// Polynomial in i variables
-		CRFunctionModulus f = constant(CR.valueOf(0));
+		CRFunctionModulus f = constant(0.0);
 		for (int j = 0; j < l.size(); j++) {
 			// g = a * i ^ k
 			Double a = l.get(j).getKey();
 			Integer i = l.get(j).getValue().getKey();
 			Integer k = l.get(j).getValue().getValue();
-			CRFunctionModulus g = constant(CR.valueOf(a));
+			CRFunctionModulus g = constant(a);
 			CRFunctionModulus h = pow(i, k);
 			f = addFG(f, new timesFG_CRFunctionModulus(g, h));
 		}
 		return f;
 	}
 
+	// Returns a function equal to f whose apply method remembers the outputs of f
+	// over the 'capacity' most recently used input boxes, and whose apply and
+	// applyCR methods remember the value of f at the centres of as many boxes, so
+	// that boxes with the same centre (e.g. a search candidate and its middle
+	// child) share one CR object, and so its approximations. Outputs that
+	// applyDyadic() computes exactly bypass the cache, so the search engines only
+	// install it for functions with no exact dyadic evaluation: ring functions such
+	// as the polynomials of the GlobalSearchMain driver are never cached
+	public static CRFunctionModulus cached(CRFunctionModulus f, int capacity) {
+		return new cached_CRFunctionModulus(f, capacity);
+	}
+
+	// Returns a summary of the statistics of the cache of a function returned by
+	// cached(), e.g. for sizing its capacity, or null for any other function
+	public static String cacheStatistics(CRFunctionModulus f) {
+		return f instanceof cached_CRFunctionModulus ? ((cached_CRFunctionModulus) f).statistics() : null;
+	}
+
+	// Returns a function representing the same polynomial as polynomial(l), but
+	// evaluated in Horner form and with a modulus computed from the Taylor
+	// expansion of each variable's polynomial at the centre of the box, which is
+	// much tighter than the modulus of the sum-of-products tree
+	public static CRFunctionModulus hornerPolynomial(List<Pair<Double, Pair<Integer, Integer>>> l) {
+		return new horner_CRFunctionModulus(l);
+	}
+
 }
 
 // Subclass for representing constant functions
 class constant_CRFunctionModulus extends CRFunctionModulus {
 	private CR constant;
+	private double constantDouble;
+	private DoubleInterval constantInterval;
+	// The exact value of the constant, or null if it is not known to be dyadic
+	private Dyadic exact;
 
 	public constant_CRFunctionModulus(CR c) {
 		constant = c;
+		constantDouble = c.doubleValue();
+		constantInterval = DoubleInterval.of(c);
+	}
+
+	public constant_CRFunctionModulus(Dyadic c) {
+		this(c.getCR());
+		exact = c;
 	}
 
 	public CR function(List<CR> xs) {
@@ -113,6 +621,53 @@ class constant_CRFunctionModulus extends CRFunctionModulus {
 	public CR modulus(List<CR> xs, List<CR> es) {
 		return CR.valueOf(0);
 	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return new Pair<>(constant, CR.valueOf(0));
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		return new int[] { exact == null ? tape.constant(constant) : tape.constant(exact), tape.zero() };
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		return new Pair<>(constant, new CR[xs.size()]);
+	}
+
+	public double functionDouble(double[] xs) {
+		return constantDouble;
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		double[] result = new double[xs.length + 1];
+		result[0] = constantDouble;
+		return result;
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		return new DoubleInterval[] { constantInterval, DoubleInterval.ZERO };
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[] result = new DoubleInterval[xs.length + 1];
+		Arrays.fill(result, DoubleInterval.ZERO);
+		result[0] = constantInterval;
+		return result;
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		return exact == null ? null : new Dyadic[] { exact, Dyadic.ZERO };
+	}
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		if (xs.length == 0)
+			return null;
+		return exact == null ? xs[0].constant(constant) : xs[0].constant(exact);
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return constantHessian(xs.length, constantInterval);
+	}
 }
 
 // Subclass for representing projection functions
@@ -130,6 +685,53 @@ class proj_CRFunctionModulus extends CRFunctionModulus {
 	public CR modulus(List<CR> xs, List<CR> es) {
 		return es.get(i);
 	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return new Pair<>(xs.get(i), es.get(i));
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		return new int[] { tape.input(i), tape.distance(i) };
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		return new Pair<>(xs.get(i), unitGradient(xs.size(), i));
+	}
+
+	public double functionDouble(double[] xs) {
+		return xs[i];
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		double[] result = new double[xs.length + 1];
+		result[0] = xs[i];
+		result[i + 1] = 1.0;
+		return result;
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		return new DoubleInterval[] { xs[i], es[i] };
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[] result = new DoubleInterval[xs.length + 1];
+		Arrays.fill(result, DoubleInterval.ZERO);
+		result[0] = xs[i];
+		result[i + 1] = new DoubleInterval(1, 1);
+		return result;
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		return new Dyadic[] { xs[i], es[i] };
+	}
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		return xs[i];
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return inputHessian(xs, i);
+	}
 }
 
 // Subclass for representing binary addition functions
@@ -149,6 +751,77 @@ class addFG_CRFunctionModulus extends CRFunctionModulus {
 	public CR modulus(List<CR> xs, List<CR> es) {
 		return f.modulus(xs, es).add(g.modulus(xs, es));
 	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		Pair<CR, CR> fv = f.evaluate(xs, es, memo);
+		Pair<CR, CR> gv = g.evaluate(xs, es, memo);
+		return new Pair<>(fv.getKey().add(gv.getKey()), fv.getValue().add(gv.getValue()));
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		int[] fs = tape.node(f);
+		int[] gs = tape.node(g);
+		return new int[] { tape.add(fs[0], gs[0]), tape.add(fs[1], gs[1]) };
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		Pair<CR, CR[]> fd = f.gradient(xs, memo);
+		Pair<CR, CR[]> gd = g.gradient(xs, memo);
+		return new Pair<>(fd.getKey().add(gd.getKey()), addGradients(fd.getValue(), gd.getValue()));
+	}
+
+	public double functionDouble(double[] xs) {
+		return f.functionDouble(xs) + g.functionDouble(xs);
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		double[] fd = f.valueGradientDouble(xs);
+		double[] gd = g.valueGradientDouble(xs);
+		for (int j = 0; j < fd.length; j++) {
+			fd[j] += gd[j];
+		}
+		return fd;
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		DoubleInterval[] fv = f.evaluateInterval(xs, es);
+		DoubleInterval[] gv = g.evaluateInterval(xs, es);
+		return new DoubleInterval[] { fv[0].add(gv[0]), fv[1].add(gv[1]) };
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[] fd = f.gradientInterval(xs);
+		DoubleInterval[] gd = g.gradientInterval(xs);
+		DoubleInterval[] result = new DoubleInterval[fd.length];
+		for (int j = 0; j < fd.length; j++) {
+			result[j] = fd[j].add(gd[j]);
+		}
+		return result;
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		Dyadic[] fv = f.evaluateDyadic(xs, es);
+		if (fv == null)
+			return null;
+		Dyadic[] gv = g.evaluateDyadic(xs, es);
+		if (gv == null)
+			return null;
+		return new Dyadic[] { fv[0].add(gv[0]), fv[1].add(gv[1]) };
+	}
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		TaylorModel fm = f.taylorModel(xs);
+		if (fm == null)
+			return null;
+		TaylorModel gm = g.taylorModel(xs);
+		if (gm == null)
+			return null;
+		return fm.add(gm);
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return addHessians(f.hessianInterval(xs), g.hessianInterval(xs));
+	}
 }
 
 // Subclass for representing binary multiplication functions
@@ -165,14 +838,414 @@ class timesFG_CRFunctionModulus extends CRFunctionModulus {
 		return f.function(xs).multiply(g.function(xs));
 	}
 
+	// Computed via evaluate(), so that f and g are evaluated once
 	public CR modulus(List<CR> xs, List<CR> es) {
-		CR fx = f.function(xs).abs();
-		CR gx = g.function(xs).abs();
-		CR mx = f.modulus(xs, es);
-		CR nx = g.modulus(xs, es);
+		return evaluate(xs, es).getValue();
+	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		Pair<CR, CR> fv = f.evaluate(xs, es, memo);
+		Pair<CR, CR> gv = g.evaluate(xs, es, memo);
+		CR fx = fv.getKey().abs();
+		CR gx = gv.getKey().abs();
+		CR mx = fv.getValue();
+		CR nx = gv.getValue();
 		CR one = gx.multiply(mx);
 		CR two = fx.multiply(nx);
 		CR three = mx.multiply(nx);
-		return one.add(two).add(three);
+		return new Pair<>(fv.getKey().multiply(gv.getKey()), one.add(two).add(three));
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		int[] fs = tape.node(f);
+		int[] gs = tape.node(g);
+		int one = tape.multiply(tape.abs(gs[0]), fs[1]);
+		int two = tape.multiply(tape.abs(fs[0]), gs[1]);
+		int three = tape.multiply(fs[1], gs[1]);
+		return new int[] { tape.multiply(fs[0], gs[0]), tape.add(tape.add(one, two), three) };
+	}
+
+	// (fg)' = g f' + f g'
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		Pair<CR, CR[]> fd = f.gradient(xs, memo);
+		Pair<CR, CR[]> gd = g.gradient(xs, memo);
+		return new Pair<>(fd.getKey().multiply(gd.getKey()),
+				addGradients(scaleGradient(gd.getKey(), fd.getValue()), scaleGradient(fd.getKey(), gd.getValue())));
+	}
+
+	public double functionDouble(double[] xs) {
+		return f.functionDouble(xs) * g.functionDouble(xs);
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		double[] fd = f.valueGradientDouble(xs);
+		double[] gd = g.valueGradientDouble(xs);
+		double[] result = new double[fd.length];
+		result[0] = fd[0] * gd[0];
+		for (int j = 1; j < fd.length; j++) {
+			result[j] = gd[0] * fd[j] + fd[0] * gd[j];
+		}
+		return result;
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		DoubleInterval[] fv = f.evaluateInterval(xs, es);
+		DoubleInterval[] gv = g.evaluateInterval(xs, es);
+		DoubleInterval one = gv[0].abs().multiply(fv[1]);
+		DoubleInterval two = fv[0].abs().multiply(gv[1]);
+		DoubleInterval three = fv[1].multiply(gv[1]);
+		return new DoubleInterval[] { fv[0].multiply(gv[0]), one.add(two).add(three) };
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[] fd = f.gradientInterval(xs);
+		DoubleInterval[] gd = g.gradientInterval(xs);
+		DoubleInterval[] result = new DoubleInterval[fd.length];
+		result[0] = fd[0].multiply(gd[0]);
+		for (int j = 1; j < fd.length; j++) {
+			result[j] = gd[0].multiply(fd[j]).add(fd[0].multiply(gd[j]));
+		}
+		return result;
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		Dyadic[] fv = f.evaluateDyadic(xs, es);
+		if (fv == null)
+			return null;
+		Dyadic[] gv = g.evaluateDyadic(xs, es);
+		if (gv == null)
+			return null;
+		Dyadic one = gv[0].abs().multiply(fv[1]);
+		Dyadic two = fv[0].abs().multiply(gv[1]);
+		Dyadic three = fv[1].multiply(gv[1]);
+		return new Dyadic[] { fv[0].multiply(gv[0]), one.add(two).add(three) };
+	}
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		TaylorModel fm = f.taylorModel(xs);
+		if (fm == null)
+			return null;
+		TaylorModel gm = g.taylorModel(xs);
+		if (gm == null)
+			return null;
+		return fm.multiply(gm);
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return multiplyHessians(f.hessianInterval(xs), g.hessianInterval(xs));
+	}
+}
+// Subclass for representing polynomials Sum_i(p_i(x_i)) + c, i.e. sums of terms
+// a*(x_i)^k as given to CRFunctionModulus.polynomial.
+// At the centre x of a box, the Taylor coefficients c_ik = p_i^(k)(x_i)/k! are
+// computed by repeated synthetic division, the first pass of which is Horner's
+// rule for p_i(x_i). As the Taylor expansion of a polynomial is exact,
+// |f(x+h)-f(x)| <= Sum_i Sum_(k>=1) |c_ik|*e_i^k for |h_i| <= e_i, which is
+// used as the modulus; this is the bound on the derivative polynomial over the
+// box, integrated. Evaluation is through a compiled tape.
+class horner_CRFunctionModulus extends CRFunctionModulus {
+	private Dyadic constant;
+	// coefficients[i][k] is the coefficient of (x_i)^k, or null if zero
+	private Dyadic[][] coefficients;
+	private CRFunctionTape compiled;
+
+	public horner_CRFunctionModulus(List<Pair<Double, Pair<Integer, Integer>>> l) {
+		int numVariables = 0;
+		for (Pair<Double, Pair<Integer, Integer>> term : l) {
+			numVariables = Integer.max(numVariables, term.getValue().getKey() + 1);
+		}
+		int[] degrees = new int[numVariables];
+		for (Pair<Double, Pair<Integer, Integer>> term : l) {
+			int i = term.getValue().getKey();
+			degrees[i] = Integer.max(degrees[i], term.getValue().getValue());
+		}
+		coefficients = new Dyadic[numVariables][];
+		for (int i = 0; i < numVariables; i++) {
+			coefficients[i] = new Dyadic[degrees[i] + 1];
+		}
+		constant = Dyadic.ZERO;
+		for (Pair<Double, Pair<Integer, Integer>> term : l) {
+			Dyadic a = Dyadic.of(term.getKey());
+			int i = term.getValue().getKey();
+			int k = term.getValue().getValue();
+			if (k == 0) {
+				constant = constant.add(a);
+			} else {
+				coefficients[i][k] = coefficients[i][k] == null ? a : coefficients[i][k].add(a);
+			}
+		}
+		compiled = new CRFunctionTape(this);
+	}
+
+	public CR function(List<CR> xs) {
+		return compiled.function(xs);
+	}
+
+	public CR modulus(List<CR> xs, List<CR> es) {
+		return compiled.modulus(xs, es);
+	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return compiled.evaluate(xs, es);
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		return compiled.gradient(xs);
+	}
+
+	public double functionDouble(double[] xs) {
+		return compiled.functionDouble(xs);
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		return compiled.valueGradientDouble(xs);
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		return compiled.evaluateInterval(xs, es);
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		return compiled.gradientInterval(xs);
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		return compiled.evaluateDyadic(xs, es);
 	}
-}
\ No newline at end of file
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		return compiled.taylorModel(xs);
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return compiled.hessianInterval(xs);
+	}
+
+	public CRFunctionTape compile() {
+		return compiled;
+	}
+
+	public CR applyCR(List<CRIntervalCode> xs) {
+		return compiled.applyCR(xs);
+	}
+
+	public List<CRIntervalCode> apply(List<CRIntervalCode> xs) {
+		return compiled.apply(xs);
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		int value = tape.constant(constant);
+		int modulus = tape.zero();
+		for (int i = 0; i < coefficients.length; i++) {
+			int d = coefficients[i].length - 1;
+			if (d == 0)
+				continue;
+			int x = tape.input(i);
+			int[] c = new int[d + 1];
+			for (int k = 0; k <= d; k++) {
+				c[k] = coefficients[i][k] == null ? tape.zero() : tape.constant(coefficients[i][k]);
+			}
+			// Taylor shift: after pass j, c[j] is the coefficient of h^j in p_i(x+h)
+			for (int j = 0; j < d; j++) {
+				for (int k = d - 1; k >= j; k--) {
+					c[k] = tape.add(c[k], tape.multiply(x, c[k + 1]));
+				}
+			}
+			value = tape.add(value, c[0]);
+			// Sum_(k>=1) |c[k]|*e^k by Horner's rule in e
+			int e = tape.distance(i);
+			int bound = tape.abs(c[d]);
+			for (int k = d - 1; k >= 1; k--) {
+				bound = tape.add(tape.multiply(bound, e), tape.abs(c[k]));
+			}
+			modulus = tape.add(modulus, tape.multiply(bound, e));
+		}
+		return new int[] { value, modulus };
+	}
+}
+
+// Subclass for remembering the outputs of a function over input boxes, and its
+// values at the centres of input boxes. Outputs are looked up by the list of
+// input codes, i.e. by centre and precision, so a box evaluated again (e.g. once
+// the search history has forgotten it, or by another bounding strategy) skips
+// evaluating the function and its modulus. Values are looked up by the list of
+// centre codes of the inputs, so boxes with the same centre (e.g. a search
+// candidate and its middle child) share one CR object, and so its
+// approximations. In each, the least recently used entry is evicted once there
+// are more than 'capacity'.
+class cached_CRFunctionModulus extends CRFunctionModulus {
+	static final int prec_incr = 16;
+	private CRFunctionModulus f;
+	private Memo<List<CRIntervalCode>> outputs;
+	private Memo<CR> values;
+
+	// A bounded LRU map from input codes to results, with its statistics
+	private static final class Memo<V> {
+		// Guards entries, hits, misses and evictions
+		private final Map<List<CRIntervalCode>, V> entries;
+		private long hits = 0;
+		private long misses = 0;
+		private long evictions = 0;
+
+		Memo(final int capacity) {
+			entries = new LinkedHashMap<List<CRIntervalCode>, V>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<List<CRIntervalCode>, V> eldest) {
+					if (size() <= capacity)
+						return false;
+					evictions++;
+					return true;
+				}
+			};
+		}
+
+		// Returns the remembered result for the key, or null if there is none
+		synchronized V lookup(List<CRIntervalCode> key) {
+			V value = entries.get(key);
+			if (value == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+			return value;
+		}
+
+		// Remembers the result for the key and returns it, unless another thread has
+		// done so first, in which case that result is returned
+		synchronized V record(List<CRIntervalCode> key, V value) {
+			V existing = entries.get(key);
+			if (existing != null)
+				return existing;
+			entries.put(key, value);
+			return value;
+		}
+
+		synchronized String statistics() {
+			long lookups = hits + misses;
+			return "hits " + hits + ", misses " + misses + ", hit rate "
+					+ (lookups == 0 ? 0 : Math.round(100.0 * hits / lookups)) + "%, evictions " + evictions
+					+ ", size " + entries.size();
+		}
+	}
+
+	public cached_CRFunctionModulus(CRFunctionModulus f, int capacity) {
+		this.f = f;
+		outputs = new Memo<>(capacity);
+		values = new Memo<>(capacity);
+	}
+
+	public CR function(List<CR> xs) {
+		return f.function(xs);
+	}
+
+	public CR modulus(List<CR> xs, List<CR> es) {
+		return f.modulus(xs, es);
+	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return f.evaluate(xs, es, memo);
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		return f.gradient(xs, memo);
+	}
+
+	protected int[] compileNode(CRFunctionTape.Builder tape) {
+		return tape.node(f);
+	}
+
+	public double functionDouble(double[] xs) {
+		return f.functionDouble(xs);
+	}
+
+	public double[] valueGradientDouble(double[] xs) {
+		return f.valueGradientDouble(xs);
+	}
+
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		return f.evaluateInterval(xs, es);
+	}
+
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		return f.gradientInterval(xs);
+	}
+
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		return f.evaluateDyadic(xs, es);
+	}
+
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		return f.taylorModel(xs);
+	}
+
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		return f.hessianInterval(xs);
+	}
+
+	// Returns the key of the inputs' centre, the list of their centre codes
+	private static List<CRIntervalCode> centreKey(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> key = new ArrayList<>(xs.size());
+		for (CRIntervalCode x : xs) {
+			key.add(x.centre());
+		}
+		return key;
+	}
+
+	public CR applyCR(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> key = centreKey(xs);
+		CR value = values.lookup(key);
+		if (value == null)
+			value = values.record(key, f.applyCR(xs));
+		return value;
+	}
+
+	// Exact outputs need no cache
+	public List<CRIntervalCode> apply(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> exact = applyDyadic(xs);
+		if (exact != null)
+			return exact;
+		List<CRIntervalCode> key = new ArrayList<>(xs);
+		List<CRIntervalCode> output = outputs.lookup(key);
+		if (output != null)
+			return output;
+		List<CRIntervalCode> centre = centreKey(xs);
+		CR value = values.lookup(centre);
+		// With the value remembered, only the modulus is needed, so it is bounded in
+		// double interval arithmetic rather than by rebuilding the value along with it
+		double modulus = value == null ? Double.POSITIVE_INFINITY : intervalModulus(xs);
+		int outPrecision;
+		if (modulus < Double.POSITIVE_INFINITY) {
+			outPrecision = Math.max(Math.getExponent(modulus) + 1, modulusFloor(xs)) + 1;
+		} else {
+			List<CR> centres = xs.stream().map(x -> x.getCR()).collect(Collectors.toList());
+			List<CR> distances = xs.stream().map(x -> halfWidth(x)).collect(Collectors.toList());
+			Pair<CR, CR> valueModulus = f.evaluate(centres, distances);
+			if (value == null)
+				value = values.record(centre, valueModulus.getKey());
+			outPrecision = nearestPowOfTwo(valueModulus.getValue(), modulusFloor(xs)) + 1;
+		}
+		// As the boxes with this centre at the next precision levels need slightly
+		// more precise approximations, approximate to a multiple of prec_incr bits
+		value.get_appr((outPrecision - prec_incr + 1) & ~(prec_incr - 1));
+		return outputs.record(key, Collections.unmodifiableList(outputCodes(value, outPrecision)));
+	}
+
+	// Returns an upper bound on the modulus of f over the inputs, enclosed in double
+	// interval arithmetic, which is infinite (or NaN) where there is no finite one;
+	// 2^(getExponent(m)+1) > m, as nearestPowOfTwo() would give
+	private double intervalModulus(List<CRIntervalCode> xs) {
+		DoubleInterval[] centres = new DoubleInterval[xs.size()];
+		DoubleInterval[] distances = new DoubleInterval[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = DoubleInterval.of(xs.get(i).getBigInt(), xs.get(i).getPrecision());
+			distances[i] = DoubleInterval.of(BigInteger.ONE, xs.get(i).getPrecision() - 1);
+		}
+		return f.evaluateInterval(centres, distances)[1].getUpper();
+	}
+
+	// Returns a summary of the statistics of the outputs and values remembered
+	public String statistics() {
+		return "outputs: " + outputs.statistics() + "; centre values: " + values.statistics();
+	}
+}
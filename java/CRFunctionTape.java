@@ -0,0 +1,676 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.util.Pair;
+
+/*
+ * A CRFunctionModulus compiled into a straight-line evaluation tape.
+ * The function and its modulus are flattened into one list of instructions in SSA form: instruction i
+ * computes the CR held in slot i from constants, inputs and the slots of earlier instructions.
+ * Sub-functions occurring more than once, and structurally identical operations on the same slots, are
+ * compiled once (common subexpression elimination), so their CR objects are shared in every evaluation.
+ * Evaluation is a single loop over arrays, with no tree walk and no per-node allocation other than the
+ * CR objects themselves. Sub-functions of classes without a compileNode override are called as a whole.
+ * A tape is immutable and may be evaluated from several threads at once.
+ */
+public class CRFunctionTape extends CRFunctionModulus {
+
+	// Instruction codes
+	static final int CONSTANT = 0;
+	static final int INPUT = 1;
+	static final int DISTANCE = 2;
+	static final int ADD = 3;
+	static final int MULTIPLY = 4;
+	static final int ABS = 5;
+	static final int OPAQUE_FUNCTION = 6;
+	static final int OPAQUE_MODULUS = 7;
+
+	private final CRFunctionModulus source;
+	private final int[] codes;
+	private final int[] args1;
+	private final int[] args2;
+	private final CR[] constants;
+	private final double[] constantDoubles;
+	private final DoubleInterval[] constantIntervals;
+	// The exact values of the constants that are dyadic rationals, or null
+	private final Dyadic[] dyadics;
+	private final CRFunctionModulus[] opaques;
+	private final int valueSlot;
+	private final int modulusSlot;
+	// The instructions needed for the value alone
+	private final boolean[] neededForValue;
+	// The precision to which the argument of an absolute value is compared with
+	// zero when differentiating it
+	private static final int abs_sign_precision = -64;
+
+	// Compile a function into a tape
+	public CRFunctionTape(CRFunctionModulus f) {
+		this.source = f;
+		Builder tape = new Builder();
+		int[] slots = tape.node(f);
+		int n = tape.codes.size();
+		codes = new int[n];
+		args1 = new int[n];
+		args2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			codes[i] = tape.codes.get(i);
+			args1[i] = tape.args1.get(i);
+			args2[i] = tape.args2.get(i);
+		}
+		constants = tape.constants.toArray(new CR[n]);
+		constantDoubles = new double[n];
+		constantIntervals = new DoubleInterval[n];
+		for (int i = 0; i < n; i++) {
+			if (constants[i] != null) {
+				constantDoubles[i] = constants[i].doubleValue();
+				constantIntervals[i] = DoubleInterval.of(constants[i]);
+			}
+		}
+		dyadics = tape.dyadics.toArray(new Dyadic[n]);
+		opaques = tape.opaques.toArray(new CRFunctionModulus[n]);
+		valueSlot = slots[0];
+		modulusSlot = slots[1];
+		neededForValue = new boolean[n];
+		neededForValue[valueSlot] = true;
+		for (int i = n - 1; i >= 0; i--) {
+			if (neededForValue[i]) {
+				// The value instructions are run without distances, so every runner of
+				// them handles each instruction that can be reached here
+				if (codes[i] == DISTANCE || codes[i] == OPAQUE_MODULUS)
+					throw new IllegalArgumentException("The value of " + f + " depends on a modulus argument");
+				if (codes[i] == ADD || codes[i] == MULTIPLY || codes[i] == ABS)
+					neededForValue[args1[i]] = true;
+				if (codes[i] == ADD || codes[i] == MULTIPLY)
+					neededForValue[args2[i]] = true;
+			}
+		}
+	}
+
+	// Returns the number of instructions in the tape
+	public int size() {
+		return codes.length;
+	}
+
+	// Returns the function this tape was compiled from
+	public CRFunctionModulus getSource() {
+		return source;
+	}
+
+	// Runs the tape, returning the pair (function(xs), modulus(xs,es)); if es is
+	// null, only the value is computed
+	public Pair<CR, CR> evaluate(CR[] xs, CR[] es) {
+		CR[] slots = new CR[codes.length];
+		List<CR> xList = null;
+		List<CR> eList = null;
+		for (int i = 0; i < codes.length; i++) {
+			if (es == null && !neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = constants[i];
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				break;
+			case DISTANCE:
+				slots[i] = es[args1[i]];
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]].add(slots[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]].multiply(slots[args2[i]]);
+				break;
+			case ABS:
+				slots[i] = slots[args1[i]].abs();
+				break;
+			case OPAQUE_FUNCTION:
+				if (xList == null)
+					xList = Arrays.asList(xs);
+				slots[i] = opaques[i].function(xList);
+				break;
+			case OPAQUE_MODULUS:
+				if (xList == null)
+					xList = Arrays.asList(xs);
+				if (eList == null)
+					eList = Arrays.asList(es);
+				slots[i] = opaques[i].modulus(xList, eList);
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return new Pair<>(slots[valueSlot], es == null ? null : slots[modulusSlot]);
+	}
+
+	// Runs the value instructions of the tape in forward-mode automatic
+	// differentiation, returning the pair (function(xs), gradient at xs)
+	public Pair<CR, CR[]> gradient(CR[] xs) {
+		CR[] slots = new CR[codes.length];
+		CR[][] gradients = new CR[codes.length][];
+		CR[] zero = new CR[xs.length];
+		List<CR> xList = null;
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = constants[i];
+				gradients[i] = zero;
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				gradients[i] = unitGradient(xs.length, args1[i]);
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]].add(slots[args2[i]]);
+				gradients[i] = addGradients(gradients[args1[i]], gradients[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]].multiply(slots[args2[i]]);
+				gradients[i] = addGradients(scaleGradient(slots[args2[i]], gradients[args1[i]]),
+						scaleGradient(slots[args1[i]], gradients[args2[i]]));
+				break;
+			case OPAQUE_FUNCTION:
+				if (xList == null)
+					xList = Arrays.asList(xs);
+				Pair<CR, CR[]> opaque = opaques[i].gradient(xList);
+				slots[i] = opaque.getKey();
+				gradients[i] = opaque.getValue();
+				break;
+			case ABS: {
+				// Where the slot is within 2^abs_sign_precision of zero, its absolute
+				// value is given the zero subgradient
+				slots[i] = slots[args1[i]].abs();
+				int sign = slots[args1[i]].signum(abs_sign_precision);
+				gradients[i] = sign == 0 ? zero : scaleGradient(CR.valueOf(sign), gradients[args1[i]]);
+				break;
+			}
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return new Pair<>(slots[valueSlot], gradients[valueSlot]);
+	}
+
+	// Runs the value instructions of the tape in double arithmetic; not rigorous
+	public double functionDouble(double[] xs) {
+		double[] slots = new double[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = constantDoubles[i];
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]] + slots[args2[i]];
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]] * slots[args2[i]];
+				break;
+			case ABS:
+				slots[i] = Math.abs(slots[args1[i]]);
+				break;
+			case OPAQUE_FUNCTION:
+				slots[i] = opaques[i].functionDouble(xs);
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return slots[valueSlot];
+	}
+
+	// Runs the value instructions of the tape in forward-mode automatic
+	// differentiation in double arithmetic, returning {f, df/dx_0, .., df/dx_n};
+	// not rigorous
+	public double[] valueGradientDouble(double[] xs) {
+		double[][] slots = new double[codes.length][];
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			double[] slot = new double[xs.length + 1];
+			switch (codes[i]) {
+			case CONSTANT:
+				slot[0] = constantDoubles[i];
+				break;
+			case INPUT:
+				slot[0] = xs[args1[i]];
+				slot[args1[i] + 1] = 1.0;
+				break;
+			case ADD: {
+				double[] a = slots[args1[i]];
+				double[] b = slots[args2[i]];
+				for (int j = 0; j < slot.length; j++) {
+					slot[j] = a[j] + b[j];
+				}
+				break;
+			}
+			case MULTIPLY: {
+				double[] a = slots[args1[i]];
+				double[] b = slots[args2[i]];
+				slot[0] = a[0] * b[0];
+				for (int j = 1; j < slot.length; j++) {
+					slot[j] = b[0] * a[j] + a[0] * b[j];
+				}
+				break;
+			}
+			case ABS: {
+				double[] a = slots[args1[i]];
+				double sign = Math.signum(a[0]);
+				for (int j = 0; j < slot.length; j++) {
+					slot[j] = sign * a[j];
+				}
+				break;
+			}
+			case OPAQUE_FUNCTION:
+				slot = opaques[i].valueGradientDouble(xs);
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+			slots[i] = slot;
+		}
+		return slots[valueSlot];
+	}
+
+	// Runs the tape in double interval arithmetic, returning {value, modulus}
+	public DoubleInterval[] evaluateInterval(DoubleInterval[] xs, DoubleInterval[] es) {
+		DoubleInterval[] slots = new DoubleInterval[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = constantIntervals[i];
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				break;
+			case DISTANCE:
+				slots[i] = es[args1[i]];
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]].add(slots[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]].multiply(slots[args2[i]]);
+				break;
+			case ABS:
+				slots[i] = slots[args1[i]].abs();
+				break;
+			case OPAQUE_FUNCTION:
+				slots[i] = opaques[i].evaluateInterval(xs, es)[0];
+				break;
+			case OPAQUE_MODULUS:
+				slots[i] = opaques[i].evaluateInterval(xs, es)[1];
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return new DoubleInterval[] { slots[valueSlot], slots[modulusSlot] };
+	}
+
+	// Runs the value instructions of the tape in forward-mode automatic
+	// differentiation in double interval arithmetic, returning {f, df/dx_0, ..,
+	// df/dx_n} enclosed over the input intervals; the absolute value of a slot that
+	// may vanish has partial derivatives within those of the slot in magnitude
+	public DoubleInterval[] gradientInterval(DoubleInterval[] xs) {
+		DoubleInterval[][] slots = new DoubleInterval[codes.length][];
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			DoubleInterval[] slot = new DoubleInterval[xs.length + 1];
+			switch (codes[i]) {
+			case CONSTANT:
+				Arrays.fill(slot, DoubleInterval.ZERO);
+				slot[0] = constantIntervals[i];
+				break;
+			case INPUT:
+				Arrays.fill(slot, DoubleInterval.ZERO);
+				slot[0] = xs[args1[i]];
+				slot[args1[i] + 1] = new DoubleInterval(1, 1);
+				break;
+			case ADD: {
+				DoubleInterval[] a = slots[args1[i]];
+				DoubleInterval[] b = slots[args2[i]];
+				for (int j = 0; j < slot.length; j++) {
+					slot[j] = a[j].add(b[j]);
+				}
+				break;
+			}
+			case MULTIPLY: {
+				DoubleInterval[] a = slots[args1[i]];
+				DoubleInterval[] b = slots[args2[i]];
+				slot[0] = a[0].multiply(b[0]);
+				for (int j = 1; j < slot.length; j++) {
+					slot[j] = b[0].multiply(a[j]).add(a[0].multiply(b[j]));
+				}
+				break;
+			}
+			case ABS: {
+				DoubleInterval[] a = slots[args1[i]];
+				slot[0] = a[0].abs();
+				for (int j = 1; j < slot.length; j++) {
+					if (a[0].getLower() >= 0)
+						slot[j] = a[j];
+					else if (a[0].getUpper() <= 0)
+						slot[j] = a[j].negate();
+					else
+						slot[j] = new DoubleInterval(-a[j].magnitude(), a[j].magnitude());
+				}
+				break;
+			}
+			case OPAQUE_FUNCTION:
+				slot = opaques[i].gradientInterval(xs);
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+			slots[i] = slot;
+		}
+		return slots[valueSlot];
+	}
+
+	// Runs the tape in exact dyadic arithmetic, returning {value, modulus}, or
+	// null if an instruction needed is not a ring operation on dyadic constants
+	// and inputs; if es is null, only the value is computed
+	public Dyadic[] evaluateDyadic(Dyadic[] xs, Dyadic[] es) {
+		Dyadic[] slots = new Dyadic[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			if (es == null && !neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				if (dyadics[i] == null)
+					return null;
+				slots[i] = dyadics[i];
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				break;
+			case DISTANCE:
+				slots[i] = es[args1[i]];
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]].add(slots[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]].multiply(slots[args2[i]]);
+				break;
+			case ABS:
+				slots[i] = slots[args1[i]].abs();
+				break;
+			case OPAQUE_FUNCTION:
+			case OPAQUE_MODULUS:
+				Dyadic[] opaque = opaques[i].evaluateDyadic(xs, es == null ? zeros(xs.length) : es);
+				if (opaque == null)
+					return null;
+				slots[i] = opaque[codes[i] == OPAQUE_FUNCTION ? 0 : 1];
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return new Dyadic[] { slots[valueSlot], es == null ? null : slots[modulusSlot] };
+	}
+
+	// Runs the value instructions of the tape in second-order forward-mode automatic
+	// differentiation in double interval arithmetic, returning the H of
+	// hessianInterval(); the absolute value of a slot that may vanish has no second
+	// partial derivatives, so these are not bounded
+	public DoubleInterval[][] hessianInterval(DoubleInterval[] xs) {
+		DoubleInterval[][][] slots = new DoubleInterval[codes.length][][];
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = constantHessian(xs.length, constantIntervals[i]);
+				break;
+			case INPUT:
+				slots[i] = inputHessian(xs, args1[i]);
+				break;
+			case ADD:
+				slots[i] = addHessians(slots[args1[i]], slots[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = multiplyHessians(slots[args1[i]], slots[args2[i]]);
+				break;
+			case ABS: {
+				DoubleInterval[][] a = slots[args1[i]];
+				DoubleInterval sign = a[0][0].getLower() >= 0 ? new DoubleInterval(1, 1)
+						: a[0][0].getUpper() <= 0 ? new DoubleInterval(-1, -1) : null;
+				DoubleInterval[][] slot = new DoubleInterval[xs.length + 1][xs.length + 1];
+				for (int b = 0; b <= xs.length; b++) {
+					for (int c = 0; c <= xs.length; c++) {
+						if (sign != null)
+							slot[b][c] = sign.multiply(a[b][c]);
+						else if (b == 0 && c == 0)
+							slot[b][c] = a[0][0].abs();
+						else if (b == 0 || c == 0)
+							slot[b][c] = new DoubleInterval(-a[b][c].magnitude(), a[b][c].magnitude());
+						else
+							slot[b][c] = DoubleInterval.ENTIRE;
+					}
+				}
+				slots[i] = slot;
+				break;
+			}
+			case OPAQUE_FUNCTION:
+				slots[i] = opaques[i].hessianInterval(xs);
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return slots[valueSlot];
+	}
+
+	// Runs the value instructions of the tape in Taylor model arithmetic, returning
+	// a model of the function over the box of the models of the inputs, or null if
+	// an instruction needed has no Taylor model
+	public TaylorModel taylorModel(TaylorModel[] xs) {
+		if (xs.length == 0)
+			return null;
+		TaylorModel[] slots = new TaylorModel[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			if (!neededForValue[i])
+				continue;
+			switch (codes[i]) {
+			case CONSTANT:
+				slots[i] = dyadics[i] == null ? xs[0].constant(constants[i]) : xs[0].constant(dyadics[i]);
+				break;
+			case INPUT:
+				slots[i] = xs[args1[i]];
+				break;
+			case ADD:
+				slots[i] = slots[args1[i]].add(slots[args2[i]]);
+				break;
+			case MULTIPLY:
+				slots[i] = slots[args1[i]].multiply(slots[args2[i]]);
+				break;
+			case ABS:
+				slots[i] = slots[args1[i]].abs();
+				break;
+			case OPAQUE_FUNCTION:
+				slots[i] = opaques[i].taylorModel(xs);
+				if (slots[i] == null)
+					return null;
+				break;
+			default:
+				throw new IllegalStateException("Unknown instruction " + codes[i]);
+			}
+		}
+		return slots[valueSlot];
+	}
+
+	public CR function(List<CR> xs) {
+		return evaluate(xs.toArray(new CR[xs.size()]), null).getKey();
+	}
+
+	public CR modulus(List<CR> xs, List<CR> es) {
+		return evaluate(xs, es).getValue();
+	}
+
+	public Pair<CR, CR> evaluate(List<CR> xs, List<CR> es) {
+		return evaluate(xs.toArray(new CR[xs.size()]), es.toArray(new CR[es.size()]));
+	}
+
+	protected Pair<CR, CR> evaluateNode(List<CR> xs, List<CR> es, Map<CRFunctionModulus, Pair<CR, CR>> memo) {
+		return evaluate(xs, es);
+	}
+
+	protected Pair<CR, CR[]> gradientNode(List<CR> xs, Map<CRFunctionModulus, Pair<CR, CR[]>> memo) {
+		return gradient(xs.toArray(new CR[xs.size()]));
+	}
+
+	// A tape within a function being compiled is inlined
+	protected int[] compileNode(Builder tape) {
+		return tape.node(source);
+	}
+
+	public CRFunctionTape compile() {
+		return this;
+	}
+
+	public CR applyCR(List<CRIntervalCode> xs) {
+		Dyadic[] exactCentres = new Dyadic[xs.size()];
+		for (int i = 0; i < exactCentres.length; i++) {
+			exactCentres[i] = Dyadic.of(xs.get(i));
+		}
+		Dyadic[] exact = evaluateDyadic(exactCentres, null);
+		if (exact != null)
+			return exact[0].getCR();
+		CR[] centres = new CR[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = xs.get(i).getCR();
+		}
+		return evaluate(centres, null).getKey();
+	}
+
+	public List<CRIntervalCode> apply(List<CRIntervalCode> xs) {
+		List<CRIntervalCode> exact = applyDyadic(xs);
+		if (exact != null)
+			return exact;
+		CR[] centres = new CR[xs.size()];
+		CR[] distances = new CR[xs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = xs.get(i).getCR();
+			distances[i] = halfWidth(xs.get(i));
+		}
+		Pair<CR, CR> valueModulus = evaluate(centres, distances);
+		return outputCodes(valueModulus.getKey(), valueModulus.getValue(), modulusFloor(xs));
+	}
+
+	/*
+	 * Emits the instructions of a tape under construction. Each method returns the slot holding the
+	 * result, reusing the slot of an identical earlier instruction where there is one.
+	 */
+	public static final class Builder {
+
+		private List<Integer> codes = new ArrayList<>();
+		private List<Integer> args1 = new ArrayList<>();
+		private List<Integer> args2 = new ArrayList<>();
+		private List<CR> constants = new ArrayList<>();
+		private List<Dyadic> dyadics = new ArrayList<>();
+		private List<CRFunctionModulus> opaques = new ArrayList<>();
+		// Instructions by code, arguments and constant or function (CR and
+		// CRFunctionModulus compare by identity, and Dyadic by value)
+		private Map<List<Object>, Integer> emitted = new HashMap<>();
+		private Map<CRFunctionModulus, int[]> compiled = new IdentityHashMap<>();
+		private int zero = -1;
+
+		private Builder() {
+		}
+
+		// Compiles a sub-function, returning the slots {value, modulus}
+		public int[] node(CRFunctionModulus f) {
+			int[] slots = compiled.get(f);
+			if (slots == null) {
+				slots = f.compileNode(this);
+				compiled.put(f, slots);
+			}
+			return slots;
+		}
+
+		// Returns the slot of the constant zero, which is simplified away in sums and
+		// products
+		public int zero() {
+			if (zero < 0)
+				zero = emit(CONSTANT, 0, 0, Dyadic.ZERO);
+			return zero;
+		}
+
+		public int constant(CR c) {
+			return emit(CONSTANT, 0, 0, c);
+		}
+
+		// A constant whose exact value is known, so that the tape can be run in exact
+		// dyadic arithmetic
+		public int constant(Dyadic c) {
+			return c.signum() == 0 ? zero() : emit(CONSTANT, 0, 0, c);
+		}
+
+		// The i-th input
+		public int input(int i) {
+			return emit(INPUT, i, 0, null);
+		}
+
+		// The i-th input's distance, i.e. the argument of the modulus
+		public int distance(int i) {
+			return emit(DISTANCE, i, 0, null);
+		}
+
+		public int add(int a, int b) {
+			if (a == zero())
+				return b;
+			if (b == zero())
+				return a;
+			return emit(ADD, Math.min(a, b), Math.max(a, b), null);
+		}
+
+		public int multiply(int a, int b) {
+			if (a == zero() || b == zero())
+				return zero();
+			return emit(MULTIPLY, Math.min(a, b), Math.max(a, b), null);
+		}
+
+		public int abs(int a) {
+			if (a == zero())
+				return zero();
+			return emit(ABS, a, 0, null);
+		}
+
+		// Calls a function whose class has no compileNode override as a whole,
+		// returning the slots {value, modulus}
+		public int[] opaque(CRFunctionModulus f) {
+			return new int[] { emit(OPAQUE_FUNCTION, 0, 0, f), emit(OPAQUE_MODULUS, 0, 0, f) };
+		}
+
+		private int emit(int code, int arg1, int arg2, Object operand) {
+			List<Object> key = Arrays.asList(code, arg1, arg2, operand);
+			Integer slot = emitted.get(key);
+			if (slot == null) {
+				slot = codes.size();
+				codes.add(code);
+				args1.add(arg1);
+				args2.add(arg2);
+				constants.add(operand instanceof CR ? (CR) operand
+						: operand instanceof Dyadic ? ((Dyadic) operand).getCR() : null);
+				dyadics.add(operand instanceof Dyadic ? (Dyadic) operand : null);
+				opaques.add(operand instanceof CRFunctionModulus ? (CRFunctionModulus) operand : null);
+				emitted.put(key, slot);
+			}
+			return slot;
+		}
+	}
+
+}
@@ -34,6 +34,21 @@ public class CRIntervalCode {
 		return CR.valueOf(k).shiftLeft(p);
 	}
 
+	// Returns the lower end of the interval, (2k-1)*2^(p-1)
+	public Dyadic getLower() {
+		return new Dyadic(k.shiftLeft(1).subtract(BigInteger.ONE), p - 1);
+	}
+
+	// Returns the upper end of the interval, (2k+1)*2^(p-1)
+	public Dyadic getUpper() {
+		return new Dyadic(k.shiftLeft(1).add(BigInteger.ONE), p - 1);
+	}
+
+	// Returns a double approximating the centre of the interval
+	public double getDouble() {
+		return Math.scalb(k.doubleValue(), p);
+	}
+
 	// Returns a string representation of the real at the centre of the interval
 	// e.g. (2,1).midString = "4"
 	public String midString() {
@@ -63,6 +78,25 @@ public class CRIntervalCode {
 		return (k.compareTo(c.getBigInt()) == 0) && (p == c.getPrecision());
 	}
 
+	// Codes are equal only if they represent the exact same interval, i.e. sameAs
+	public boolean equals(Object o) {
+		return (o instanceof CRIntervalCode) && sameAs((CRIntervalCode) o);
+	}
+
+	public int hashCode() {
+		return 31 * k.hashCode() + p;
+	}
+
+	// Returns the code of the coarsest precision level with the same centre, e.g.
+	// (4,-1).centre() = (1,1), so that codes with the same centre have equal
+	// centre codes
+	public CRIntervalCode centre() {
+		if (k.signum() == 0)
+			return new CRIntervalCode(BigInteger.ZERO, 0);
+		int zeros = k.getLowestSetBit();
+		return new CRIntervalCode(k.shiftRight(zeros), p + zeros);
+	}
+
 	// Returns true only if all members of this represented interval are also in the
 	// parameter's represented interval
 	public boolean inInterval(CRIntervalCode c) {
@@ -0,0 +1,132 @@
+import java.math.BigInteger;
+
+/*
+ * A closed real interval [lower, upper] with double end-points, for rigorous interval arithmetic.
+ * Every operation rounds its result outwards by one step (Math.nextDown / Math.nextUp) from the
+ * round-to-nearest double result, so that the result encloses the exact result for all members
+ * of the operands. Overflow and undefined results (e.g. 0 * infinity) give intervals that are not
+ * finite, which callers should treat as carrying no information.
+ */
+public class DoubleInterval {
+
+	public static final DoubleInterval ENTIRE = new DoubleInterval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	public static final DoubleInterval ZERO = new DoubleInterval(0, 0);
+
+	private final double lower;
+	private final double upper;
+
+	// Construct the interval [lower, upper]
+	public DoubleInterval(double lower, double upper) {
+		this.lower = lower;
+		this.upper = upper;
+	}
+
+	// Returns an interval enclosing k*2^p, which is a single point if k*2^p is a
+	// double; k with more than 62 bits is first rounded down to 62 bits j*2^s and
+	// k*2^p is enclosed in [j*2^(p+s), (j+1)*2^(p+s)], as k.doubleValue() would
+	// overflow for k with more than about 1024 bits; k*2^p beyond the doubles is
+	// enclosed in [Double.MAX_VALUE, +inf] (or [-inf, -Double.MAX_VALUE])
+	public static DoubleInterval of(BigInteger k, int p) {
+		int shift = k.bitLength() - 62;
+		if (shift > 0) {
+			BigInteger j = k.shiftRight(shift);
+			return new DoubleInterval(of(j, p + shift).lower, of(j.add(BigInteger.ONE), p + shift).upper);
+		}
+		double d = Math.scalb(k.doubleValue(), p);
+		if (Double.isInfinite(d))
+			return d > 0 ? new DoubleInterval(Double.MAX_VALUE, Double.POSITIVE_INFINITY)
+					: new DoubleInterval(Double.NEGATIVE_INFINITY, -Double.MAX_VALUE);
+		if (k.bitLength() <= 53 && (d == 0 ? k.signum() == 0 : Math.getExponent(d) >= Double.MIN_EXPONENT))
+			return new DoubleInterval(d, d);
+		// d is rounded to nearest at most twice, so two steps outwards suffice
+		return new DoubleInterval(Math.nextDown(Math.nextDown(d)), Math.nextUp(Math.nextUp(d)));
+	}
+
+	// Returns an interval enclosing the real represented by the CR object, which
+	// is approximated to about 60 bits
+	public static DoubleInterval of(CR c) {
+		int precision = Math.getExponent(c.doubleValue()) - 60;
+		BigInteger appr = c.get_appr(precision);
+		return new DoubleInterval(of(appr.subtract(BigInteger.ONE), precision).lower,
+				of(appr.add(BigInteger.ONE), precision).upper);
+	}
+
+	// Returns an interval enclosing the interval represented by the code (k,p),
+	// i.e. [(k-1/2)*2^p, (k+1/2)*2^p]
+	public static DoubleInterval of(CRIntervalCode x) {
+		BigInteger k = x.getBigInt().shiftLeft(1);
+		int p = x.getPrecision() - 1;
+		return new DoubleInterval(of(k.subtract(BigInteger.ONE), p).lower, of(k.add(BigInteger.ONE), p).upper);
+	}
+
+	// Returns the lower end-point
+	public double getLower() {
+		return lower;
+	}
+
+	// Returns the upper end-point
+	public double getUpper() {
+		return upper;
+	}
+
+	// Returns an upper bound on the width of the interval
+	public double width() {
+		return Math.nextUp(upper - lower);
+	}
+
+	// Returns true only if both end-points are finite
+	public boolean isFinite() {
+		return Double.isFinite(lower) && Double.isFinite(upper);
+	}
+
+	// Returns true only if the interval contains x
+	public boolean contains(double x) {
+		return lower <= x && x <= upper;
+	}
+
+	public DoubleInterval add(DoubleInterval y) {
+		return new DoubleInterval(Math.nextDown(lower + y.lower), Math.nextUp(upper + y.upper));
+	}
+
+	public DoubleInterval negate() {
+		return new DoubleInterval(-upper, -lower);
+	}
+
+	public DoubleInterval subtract(DoubleInterval y) {
+		return add(y.negate());
+	}
+
+	public DoubleInterval multiply(DoubleInterval y) {
+		double a = lower * y.lower;
+		double b = lower * y.upper;
+		double c = upper * y.lower;
+		double d = upper * y.upper;
+		if (Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d))
+			return ENTIRE;
+		return new DoubleInterval(Math.nextDown(Math.min(Math.min(a, b), Math.min(c, d))),
+				Math.nextUp(Math.max(Math.max(a, b), Math.max(c, d))));
+	}
+
+	public DoubleInterval abs() {
+		if (lower >= 0)
+			return this;
+		if (upper <= 0)
+			return negate();
+		return new DoubleInterval(0, Math.max(-lower, upper));
+	}
+
+	// Returns the greatest absolute value of the members
+	public double magnitude() {
+		return Math.max(-lower, upper);
+	}
+
+	// Returns the interval widened by e on both sides, for e >= 0
+	public DoubleInterval widen(double e) {
+		return new DoubleInterval(Math.nextDown(lower - e), Math.nextUp(upper + e));
+	}
+
+	public String toString() {
+		return "[" + lower + "," + upper + "]";
+	}
+
+}
@@ -0,0 +1,130 @@
+import java.math.BigInteger;
+
+/*
+ * An exact dyadic rational m*2^e, with a BigInteger mantissa m and an int exponent e.
+ * Dyadic rationals are closed under addition, subtraction and multiplication, and include the centres
+ * of interval codes and every double, so polynomials with double coefficients can be evaluated exactly
+ * at the centres of search candidates. Values are kept normalised (m odd, or m = 0 and e = 0), so that
+ * equal values have equal representations.
+ */
+public class Dyadic implements Comparable<Dyadic> {
+
+	public static final Dyadic ZERO = new Dyadic(BigInteger.ZERO, 0);
+	public static final Dyadic ONE = new Dyadic(BigInteger.ONE, 0);
+
+	private final BigInteger mantissa;
+	private final int exponent;
+
+	// Construct the dyadic rational m*2^e
+	public Dyadic(BigInteger m, int e) {
+		if (m.signum() == 0) {
+			mantissa = BigInteger.ZERO;
+			exponent = 0;
+		} else {
+			int zeros = m.getLowestSetBit();
+			mantissa = m.shiftRight(zeros);
+			exponent = e + zeros;
+		}
+	}
+
+	// Returns the value of a finite double
+	public static Dyadic of(double d) {
+		if (Double.isNaN(d))
+			throw new ArithmeticException("Nan argument");
+		if (Double.isInfinite(d))
+			throw new ArithmeticException("Infinite argument");
+		if (d == 0)
+			return ZERO;
+		int e = Math.max(Math.getExponent(d), Double.MIN_EXPONENT) - 52;
+		return new Dyadic(BigInteger.valueOf((long) Math.scalb(d, -e)), e);
+	}
+
+	// Returns the centre of the interval represented by the code (k,p), i.e. k*2^p
+	public static Dyadic of(CRIntervalCode x) {
+		return new Dyadic(x.getBigInt(), x.getPrecision());
+	}
+
+	// Returns the mantissa m, which is odd unless the value is zero
+	public BigInteger getMantissa() {
+		return mantissa;
+	}
+
+	// Returns the exponent e
+	public int getExponent() {
+		return exponent;
+	}
+
+	public int signum() {
+		return mantissa.signum();
+	}
+
+	public Dyadic add(Dyadic y) {
+		if (signum() == 0)
+			return y;
+		if (y.signum() == 0)
+			return this;
+		if (exponent <= y.exponent)
+			return new Dyadic(mantissa.add(y.mantissa.shiftLeft(y.exponent - exponent)), exponent);
+		return new Dyadic(mantissa.shiftLeft(exponent - y.exponent).add(y.mantissa), y.exponent);
+	}
+
+	public Dyadic negate() {
+		return new Dyadic(mantissa.negate(), exponent);
+	}
+
+	public Dyadic subtract(Dyadic y) {
+		return add(y.negate());
+	}
+
+	public Dyadic multiply(Dyadic y) {
+		return new Dyadic(mantissa.multiply(y.mantissa), exponent + y.exponent);
+	}
+
+	public Dyadic abs() {
+		return signum() < 0 ? negate() : this;
+	}
+
+	// Returns the value * 2^n
+	public Dyadic shiftLeft(int n) {
+		return new Dyadic(mantissa, exponent + n);
+	}
+
+	// Returns the nearest integer to the value * 2^-p (rounding halves upwards),
+	// i.e. an approximation as CR.get_appr(p) gives, but exactly rounded
+	public BigInteger round(int p) {
+		if (exponent >= p)
+			return mantissa.shiftLeft(exponent - p);
+		int shift = p - exponent;
+		return mantissa.add(BigInteger.ONE.shiftLeft(shift - 1)).shiftRight(shift);
+	}
+
+	// Returns the least n such that |value| <= 2^n, for a non-zero value
+	public int ceilLog2() {
+		if (signum() == 0)
+			throw new ArithmeticException("Logarithm of zero");
+		BigInteger m = mantissa.abs();
+		return m.equals(BigInteger.ONE) ? exponent : exponent + m.bitLength();
+	}
+
+	// Returns a CR object representing the value
+	public CR getCR() {
+		return CR.valueOf(mantissa).shiftLeft(exponent);
+	}
+
+	public int compareTo(Dyadic y) {
+		return subtract(y).signum();
+	}
+
+	public boolean equals(Object o) {
+		return (o instanceof Dyadic) && mantissa.equals(((Dyadic) o).mantissa) && exponent == ((Dyadic) o).exponent;
+	}
+
+	public int hashCode() {
+		return 31 * mantissa.hashCode() + exponent;
+	}
+
+	public String toString() {
+		return mantissa + "*2^" + exponent;
+	}
+
+}
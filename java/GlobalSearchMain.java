@@ -8,79 +8,334 @@ import javafx.util.Pair;
 
 /*
  * The implementation of a branch-and-bound algorithm on Boehm encodings for real numbers.
- * The main method allows one to test the algorithm on any unary polynomial function.
+ * For functions of one input, the search area is first narrowed down by a UnivariateSearch.
+ * The main method allows one to test the algorithm on any unary polynomial function; given the
+ * argument 'compare', it also measures the time the UnivariateSearch saves.
  */
 class GlobalSearchMain {
 
 	private int timeGoal;
 	private int numParameters;
-	private ArrayList<MinBox> frontier = new ArrayList<>();
+	private int historyCapacity;
+	private CRFunctionModulus function;
+	private MinBoxFrontier frontier = new MinBoxFrontier(new MinBoxCompare());
+	// The number of outputs and centre values remembered for functions that cannot
+	// be evaluated exactly, and the cache remembering them (null for functions that
+	// can)
+	static final int cacheCapacity = 1 << 16;
+	private CRFunctionModulus cache;
+	// The evaluated candidate with the least output upper-bound
+	private MinBox incumbent;
+	// The numbers of candidates branched, and discarded as they cannot contain a
+	// global minimiser, so far
+	private long branched = 0;
+	private long discarded = 0;
+	// The number of candidates evaluated so far
+	private long evaluated = 0;
+	// The width of the enclosure of the global minimum, last measured while the
+	// search area was ordered by global criteria (null until then)
+	private Dyadic accuracy;
+	// The candidates proved to hold exactly one stationary point, none of which
+	// contains another
+	private List<MinBox> certified = new ArrayList<>();
+	// Whether a function of one input is first minimised by the Piyavskii-Shubert
+	// search
+	private boolean univariate = true;
 
-	// Initialise the algorithm
+	// Initialise the algorithm; derivative may be null, in which case the partial
+	// derivatives are computed by automatic differentiation of the function
 	public GlobalSearchMain(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
 			int startPrecision, int timeGoal) {
+		this(function, derivative, numParameters, startPrecision, timeGoal, 0);
+	}
+
+	// Initialise the algorithm, remembering at most historyCapacity evaluated
+	// candidates (or all of them if historyCapacity <= 0)
+	public GlobalSearchMain(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
+			int startPrecision, int timeGoal, int historyCapacity) {
+		this(function, derivative, numParameters, startPrecision, timeGoal, historyCapacity,
+				BoundingStrategy.modulus());
+	}
+
+	// Initialise the algorithm, bounding the output of each candidate by the given
+	// strategy
+	public GlobalSearchMain(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
+			int startPrecision, int timeGoal, int historyCapacity, BoundingStrategy strategy) {
 		this.timeGoal = timeGoal;
 		this.numParameters = numParameters;
+		this.historyCapacity = historyCapacity;
 		List<CRIntervalCode> initialInputs = new ArrayList<>();
 		for (int i = 0; i < numParameters; i++) {
 			initialInputs.add(new CRIntervalCode(BigInteger.ZERO, startPrecision));
 		}
+		// Functions that cannot be evaluated exactly are evaluated through a cache, so
+		// that candidates evaluated again, and candidates sharing a centre, share work;
+		// the outputs of the others are exact and cheap, and would bypass it anyway
+		if (function.evaluateDyadic(CRFunctionModulus.zeros(numParameters),
+				CRFunctionModulus.zeros(numParameters)) == null) {
+			cache = CRFunctionModulus.cached(function, cacheCapacity);
+			function = cache;
+		}
+		this.function = function;
 		// Initialise the search area as a single candidate
-		frontier.add(new MinBox(initialInputs, initialInputs, function, derivative));
+		incumbent = new MinBox(initialInputs, initialInputs, function, derivative, strategy);
+		frontier.push(incumbent);
+	}
+
+	// Replace the incumbent if the given candidate has a lower output upper-bound
+	private void updateIncumbent(MinBox box) {
+		if (MinBoxCompare.compareIntervalsUpper(box.getOutput().get(2), incumbent.getOutput().get(2)) < 0)
+			incumbent = box;
+	}
+
+	// Returns true only if the candidate cannot contain a global minimiser, i.e. the
+	// lower-bound of its known output is above the least output upper-bound seen so
+	// far; candidates with no known output are not evaluated for this
+	private boolean eclipsed(MinBox box) {
+		List<CRIntervalCode> output = box.getKnownOutput();
+		return output != null && MinBoxCompare.AEclipsesB(incumbent.getOutput().get(2), output.get(0));
+	}
+
+	// Returns true only if the newly evaluated candidate cannot contain a global
+	// minimiser, as it is eclipsed or the function is monotone over it
+	private boolean excluded(MinBox box) {
+		return eclipsed(box) || box.excludedByMonotonicity();
+	}
+
+	// Evaluate candidates as they reach the front of the search area, putting each
+	// back in its place under its actual ordering, and discard those that cannot
+	// contain a global minimiser; then return the next candidate to be branched, or
+	// null if the search area is empty
+	private MinBox selectNext() {
+		while (!frontier.isEmpty()) {
+			MinBox top = frontier.peek();
+			if (top.isEvaluated()) {
+				if (!eclipsed(top))
+					return top;
+				frontier.pop();
+				discarded++;
+			} else if (eclipsed(top)) {
+				frontier.pop();
+				discarded++;
+			} else {
+				frontier.pop();
+				top.evaluate();
+				evaluated++;
+				updateIncumbent(top);
+				if (excluded(top)) {
+					discarded++;
+				} else {
+					frontier.push(top);
+				}
+			}
+		}
+		return frontier.peek();
+	}
+
+	// Evaluate the candidates in the search area whose output is not known, counting
+	// them as any other evaluation and discarding those that cannot contain a global
+	// minimiser, so that the union of the search area can then be taken without
+	// evaluating anything
+	private void evaluateUnknown() {
+		List<MinBox> unknown = new ArrayList<>();
+		for (MinBox box : frontier.toList()) {
+			if (box.getKnownOutput() == null)
+				unknown.add(box);
+		}
+		if (unknown.isEmpty())
+			return;
+		frontier.removeIf(x -> x.getKnownOutput() == null);
+		for (MinBox box : unknown) {
+			box.evaluate();
+			evaluated++;
+			updateIncumbent(box);
+			if (excluded(box)) {
+				discarded++;
+			} else {
+				frontier.push(box);
+			}
+		}
+	}
+
+	// Returns a summary of the statistics of the cache the function is evaluated
+	// through, or null if it can be evaluated exactly and so has none
+	public String getCacheStatistics() {
+		return CRFunctionModulus.cacheStatistics(cache);
+	}
+
+	// Searches functions of one input by branch-and-bound alone, without first
+	// narrowing down the search area by the Piyavskii-Shubert search, e.g. to
+	// measure the time the latter saves
+	public void disableUnivariateSearch() {
+		univariate = false;
+	}
+
+	// Narrows down the search area for a function of one input by the
+	// Piyavskii-Shubert search, run for at most the given time from the initial
+	// candidate, returning candidates whose inputs together contain every global
+	// minimiser; if a region left by the search has no enclosing code inside the
+	// search area, the initial candidate is returned instead
+	static List<MinBox> narrowUnivariate(MinBox initial, CRFunctionModulus function, int timeGoal) {
+		UnivariateSearch search = new UnivariateSearch(function, initial.getInputs().get(0).getPrecision(),
+				timeGoal);
+		search.minimise();
+		List<MinBox> boxes = new ArrayList<>();
+		for (double[] region : search.getMinimiserRegions()) {
+			MinBox box = initial.narrowArg(0, Dyadic.of(region[0]), Dyadic.of(region[1]));
+			if (box == null)
+				return Collections.singletonList(initial);
+			boxes.add(box);
+		}
+		return boxes;
+	}
+
+	// Returns the number of candidates branched so far
+	public long getBranched() {
+		return branched;
+	}
+
+	// Returns the number of candidates discarded so far as they cannot contain a
+	// global minimiser; relative to getBranched(), this measures how well the
+	// output enclosures prune the search area
+	public long getDiscarded() {
+		return discarded;
+	}
+
+	// Returns the number of candidates evaluated so far, each of which evaluates
+	// the function representation once for its output intervals
+	public long getEvaluated() {
+		return evaluated;
+	}
+
+	// Returns the width of the enclosure of the global minimum, from the least
+	// output lower-bound in the search area to the least output upper-bound seen,
+	// as last measured while the search area was ordered by global criteria (when
+	// the first candidate has the least lower bound)
+	public double getAccuracy() {
+		return accuracy == null ? Double.POSITIVE_INFINITY : accuracy.getCR().doubleValue();
+	}
+
+	// Returns the candidates proved by Krawczyk steps in the local phase of the
+	// search to hold exactly one stationary point each, keeping only the smallest
+	// of nested ones
+	public List<MinBox> getCertified() {
+		return certified;
+	}
+
+	// Records a certified candidate, replacing any that contain it, unless it
+	// contains one already recorded
+	static void addCertified(List<MinBox> certified, MinBox box) {
+		for (MinBox other : certified) {
+			if (contains(box, other))
+				return;
+		}
+		certified.removeIf(other -> contains(other, box));
+		certified.add(box);
+	}
+
+	// Returns true only if the inputs of the candidate a contain those of b
+	private static boolean contains(MinBox a, MinBox b) {
+		for (int i = 0; i < a.getInputs().size(); i++) {
+			if (!b.getInputs().get(i).inInterval(a.getInputs().get(i)))
+				return false;
+		}
+		return true;
 	}
 
 	// Algorithm
 	public Pair<String, Pair<CR, CR>> minimise() {
-		// The first candidate to be branched is the initial candidate
-		MinBox current = frontier.get(0);
-		List<MinBox> history = new ArrayList<>();
-		List<MinBox> noMinimum = new ArrayList<>();
-		history.add(current);
+		return minimise(0);
+	}
+
+	// As above, but stopping as soon as the enclosure of the global minimum is
+	// narrower than the given accuracy, while the search is still global
+	public Pair<String, Pair<CR, CR>> minimise(double accuracyGoal) {
+		Dyadic goal = Dyadic.of(accuracyGoal);
 		long startTime = System.nanoTime();
+		// A function of one input is first minimised by the Piyavskii-Shubert search in
+		// double arithmetic, for at most half the time, and the search continues in
+		// exact arithmetic from the candidates covering the regions it leaves
+		if (numParameters == 1 && univariate) {
+			for (MinBox box : narrowUnivariate(frontier.pop(), function, timeGoal / 2)) {
+				frontier.push(box);
+			}
+		}
+		// The first candidates to be branched are the initial ones
+		MinBoxHistory history = new MinBoxHistory(historyCapacity);
+		for (MinBox box : frontier.toList()) {
+			history.add(box);
+		}
+		MinBox current = selectNext();
 		long time = 0;
 		String globalSearchResult = "";
 		boolean flag = false;
-		// Stop after a given amount of time
-		while (time < timeGoal) {
+		// Stop after a given amount of time, once the budget this search runs under is
+		// exceeded, or once the accuracy goal is met
+		while (current != null && time < timeGoal) {
+			CRBudget.checkCurrent();
 			// Remove the element to be branched from the frontier
-			frontier.remove(0);
-			// Perform the branching process; if there are multiple parameters, this is
-			// guided by the partial derivatives
-			List<MinBox> newBoxes = new ArrayList<>();
-			int j = 0;
-			if (numParameters > 1) {
-				double maxDerivative = Collections.max(current.getAbsDerivatives());
-				j = current.getAbsDerivatives().indexOf(maxDerivative);
+			frontier.pop();
+			// In the local phase, first try to contract the candidate around the
+			// stationary points in it by a Krawczyk step
+			List<MinBox> newBoxes = null;
+			if (flag) {
+				newBoxes = current.contract();
+				if (current.isCertified())
+					addCertified(certified, current);
+				if (newBoxes != null && newBoxes.isEmpty())
+					discarded++;
+			}
+			// Otherwise perform the branching process; if there are multiple parameters,
+			// this is guided by the partial derivatives
+			if (newBoxes == null) {
+				int j = 0;
+				if (numParameters > 1) {
+					double maxDerivative = Collections.max(current.getAbsDerivatives());
+					j = current.getAbsDerivatives().indexOf(maxDerivative);
+				}
+				newBoxes = current.branchArg(j);
+				branched++;
 			}
-			newBoxes = current.branchArg(j);
-			// Check whether this box has been evaluated before, and add it to the search
-			// area if not
+			// Check whether this box has been seen before, and add it to the search area
+			// if not, unless its cheap output enclosure already shows it is eclipsed; it
+			// is only evaluated once it reaches the front of the search area
 			for (MinBox newBox : newBoxes) {
-				if (!newBox.alreadyIn(history)) {
-					frontier.add(newBox);
-					history.add(newBox);
+				if (eclipsed(newBox)) {
+					discarded++;
+				} else if (history.add(newBox)) {
+					frontier.push(newBox);
 				}
 			}
-			// Sort the search area by global criteria for the first 80% of the time, and
+			// Order the search area by global criteria for the first 80% of the time, and
 			// local criteria (i.e. derivative heuristics) for the last 20% of the time
 			time = (System.nanoTime() - startTime) / 1000000;
-			if (time < timeGoal * 0.8) {
-				frontier.sort(new MinBoxCompare());
-			} else {
-				if (!flag)
-					globalSearchResult = MinBox.unionFrontier(frontier, numParameters);
+			if (time >= timeGoal * 0.8 && !flag) {
+				// Candidates added before the incumbent last improved may be eclipsed
+				evaluateUnknown();
+				int size = frontier.size();
+				frontier.removeIf(x -> eclipsed(x));
+				discarded += size - frontier.size();
+				if (!frontier.isEmpty())
+					globalSearchResult = MinBox.unionFrontier(frontier.toList(), numParameters);
 				flag = true;
-				frontier.sort(new MinBoxMCompareD());
+				frontier.reorder(MinBoxCompare.local());
 			}
-			// Remove all candidates that cannot contain a global minimiser
-			noMinimum.addAll(MinBox.getEclipsed(frontier));
-			for (MinBox box : noMinimum) {
-				frontier.removeIf(x -> x.sameAs(box));
+			current = selectNext();
+			if (current == null)
+				break;
+			if (!flag) {
+				accuracy = incumbent.getOutput().get(2).getUpper().subtract(current.getOutput().get(0).getLower());
+				if (accuracy.compareTo(goal) < 0) {
+					evaluateUnknown();
+					globalSearchResult = MinBox.unionFrontier(frontier.toList(), numParameters);
+					break;
+				}
 			}
-			// Select the next candidate to be branched
-			current = frontier.get(0);
 		}
-		// Return results of the global (and local) search
+		// Return results of the global (and local) search; if every candidate has been
+		// discarded, the incumbent is the best candidate seen
+		if (current == null)
+			current = incumbent;
 		return new Pair<>(globalSearchResult,
 				new Pair<>(current.getInputs().get(0).getCR(), current.getOutput().get(1).getCR()));
 
@@ -98,8 +353,8 @@ class GlobalSearchMain {
 				fl.add(new Pair<>(param, new Pair<>(0, i)));
 			}
 		}
-		CRFunctionModulus f = CRFunctionModulus.polynomial(fl);
-		List<Pair<Double, Pair<Integer, Integer>>> dl = new ArrayList<>();
+		// The polynomial is evaluated exactly at the centres of the candidates
+		CRFunctionModulus f = CRFunctionModulus.hornerPolynomial(fl);
 		System.out.print("Chosen polynomial: ");
 		for (int i = 0; i < fl.size(); i++) {
 			double fparam = fl.get(i).getKey();
@@ -116,28 +371,69 @@ class GlobalSearchMain {
 					System.out.print(fparam);
 				}
 			}
-			if (fi != 0) {
-				double dparam = fparam * fi;
-				int di = fi - 1;
-				dl.add(new Pair<>(dparam, new Pair<>(0, di)));
-			}
 		}
 		System.out.println();
-		CRFunctionModulus d = CRFunctionModulus.polynomial(fl);
-		List<CRFunctionModulus> ds = new ArrayList<>();
-		ds.add(d);
+		// The derivative is computed by automatic differentiation of f
+		List<CRFunctionModulus> ds = null;
 		System.out.print("Enter 'n' value of starting interval [-2^n,2^n]: ");
 		int startPrec = sc.nextInt();
 		System.out.print("Enter number of seconds to run for: ");
 		int time = sc.nextInt();
+		System.out.print("Enter number of threads to run on: ");
+		int threads = sc.nextInt();
 		sc.close();
-		GlobalSearchMain min = new GlobalSearchMain(f, ds, 1, startPrec + 1, time * 1000);
-		Pair<String, Pair<CR, CR>> results = min.minimise();
+		Pair<String, Pair<CR, CR>> results;
+		List<MinBox> certified;
+		String cacheStatistics;
+		if (threads > 1) {
+			ParallelGlobalSearch min = new ParallelGlobalSearch(f, ds, 1, startPrec + 1, time * 1000, threads);
+			results = min.minimise();
+			certified = min.getCertified();
+			cacheStatistics = min.getCacheStatistics();
+		} else {
+			GlobalSearchMain min = new GlobalSearchMain(f, ds, 1, startPrec + 1, time * 1000);
+			results = min.minimise();
+			certified = min.getCertified();
+			cacheStatistics = min.getCacheStatistics();
+		}
 		String globalSearchResult = results.getKey();
 		Pair<CR, CR> localSearchResult = results.getValue();
 		System.out.println();
 		System.out.println("Global search result: " + globalSearchResult);
 		System.out.println("Local search estimate: f(" + localSearchResult.getKey() + ") " + "==> "
 				+ localSearchResult.getValue());
+		for (MinBox box : certified) {
+			CRIntervalCode x = box.getInputs().get(0);
+			System.out.println("Unique stationary point in: [" + x.goDown(-1).midString() + ","
+					+ x.goDown(+1).midString() + "]");
+		}
+		// Polynomials are evaluated exactly, so they are never evaluated through a cache
+		if (cacheStatistics != null)
+			System.out.println("Function cache: " + cacheStatistics);
+		else
+			System.out.println("Function cache: none, as the function is evaluated exactly");
+		if (args.length > 0 && args[0].equals("compare"))
+			compareUnivariate(f, startPrec + 1, time * 1000);
+	}
+
+	// Measures the time the Piyavskii-Shubert search saves on a function of one
+	// input: it is run on its own, and the branch-and-bound algorithm alone is then
+	// run until it encloses the global minimum as tightly. The two count different
+	// kinds of evaluations (exact samples and double interval bounds against exact
+	// bounds over candidates), so they are compared by time to the same accuracy
+	private static void compareUnivariate(CRFunctionModulus f, int startPrecision, int timeGoal) {
+		UnivariateSearch min = new UnivariateSearch(f, startPrecision, timeGoal);
+		min.minimise();
+		long startTime = System.nanoTime();
+		GlobalSearchMain generic = new GlobalSearchMain(f, null, 1, startPrecision, timeGoal);
+		generic.disableUnivariateSearch();
+		generic.minimise(min.getAccuracy());
+		long time = (System.nanoTime() - startTime) / 1000000;
+		System.out.println("To enclose the global minimum within " + min.getAccuracy() + ":");
+		System.out.println("  Piyavskii-Shubert search: " + min.getTimeToAccuracy() + "ms, "
+				+ min.getSamplesToAccuracy() + " exact samples and " + min.getBoundsToAccuracy()
+				+ " double interval bounds");
+		System.out.println("  Generic engine: " + (generic.getAccuracy() < min.getAccuracy() ? "" : "more than ")
+				+ time + "ms, " + generic.getEvaluated() + " exact bounds");
 	}
 }
\ No newline at end of file
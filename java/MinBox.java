@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -6,46 +7,307 @@ import java.util.stream.Collectors;
  * A search candidate for optimising a multivariate function on Boehm encodings for real numbers.
  * The candidate consists of: 
  *   The CRFunctionModulus representation of the function to be optimised,
- *   A list of functions representing partial derivatives of the function,
+ *   A list of functions representing partial derivatives of the function (or null, in which case the
+ *     partial derivatives are computed by automatic differentiation of the function),
  *   A list of input interval codes representing the inputs to the function,
  *   A list of output interval codes representing the whole output of the function applies to the input,
+ *     computed by a BoundingStrategy,
  *   A list of partial derivative heuristic values to help guide the search process.
+ * Candidates over which the function is strictly monotone in some input, decreasing towards the inside of
+ * the search area, cannot contain a global minimiser, which is tested with enclosures of the partial
+ * derivatives over the inputs. Near a minimiser, the candidate can instead be contracted by a Krawczyk
+ * (interval Newton) step on the gradient system, which also certifies candidates holding exactly one
+ * stationary point.
+ * The output intervals and the derivative heuristic values are only computed when first asked for, so
+ * candidates that the search never looks at are never evaluated. Until then, candidates are ordered by
+ * a cheap enclosure of their output in double interval arithmetic, which may also be used to discard
+ * them, or where there is none by an estimate based on the candidate they were branched from.
 */
 class MinBox {
 
 	private List<CRIntervalCode> initials;
 	private List<CRIntervalCode> inputs;
-	private List<CRIntervalCode> output;
-	private List<Double> derivatives;
+	private volatile List<CRIntervalCode> output;
+	private volatile List<Double> derivatives;
 	private CRFunctionModulus f;
 	private List<CRFunctionModulus> ds;
+	private BoundingStrategy strategy;
+	// Estimates of the output intervals and derivative heuristic values used to
+	// order the candidate until it is evaluated (null if there are none), and
+	// whether the estimated output intervals enclose the output
+	private List<CRIntervalCode> estimatedOutput;
+	private List<Double> estimatedDerivatives;
+	private boolean estimateEncloses;
+	// Whether a Krawczyk step has proved the candidate holds a unique stationary
+	// point
+	private volatile boolean certified = false;
 
-	// Constructor uses the 'apply' method of the function representation to compute
-	// the output intervals
+	// Constructor only records the inputs; the output intervals are computed by
+	// the modulus of the function representation, and the derivative heuristic
+	// values by either the given partial derivatives or the 'gradient' method of
+	// the function representation, the first time each is asked for
 	public MinBox(List<CRIntervalCode> initialInputs, List<CRIntervalCode> currentInputs, CRFunctionModulus f,
 			List<CRFunctionModulus> ds) {
+		this(initialInputs, currentInputs, f, ds, BoundingStrategy.modulus());
+	}
+
+	// As above, with the output intervals computed by the given strategy; the
+	// candidates branched from this one use the same strategy
+	public MinBox(List<CRIntervalCode> initialInputs, List<CRIntervalCode> currentInputs, CRFunctionModulus f,
+			List<CRFunctionModulus> ds, BoundingStrategy strategy) {
+		this(initialInputs, currentInputs, f, ds, strategy, null, null, false);
+	}
+
+	// Constructor for a candidate ordered by the given estimates until it is
+	// evaluated
+	private MinBox(List<CRIntervalCode> initialInputs, List<CRIntervalCode> currentInputs, CRFunctionModulus f,
+			List<CRFunctionModulus> ds, BoundingStrategy strategy, List<CRIntervalCode> estimatedOutput,
+			List<Double> estimatedDerivatives, boolean estimateEncloses) {
 		this.initials = initialInputs;
 		this.inputs = currentInputs;
 		this.f = f;
 		this.ds = ds;
-		this.output = f.apply(inputs);
+		this.strategy = strategy;
+		this.estimatedOutput = estimatedOutput;
+		this.estimatedDerivatives = estimatedDerivatives;
+		this.estimateEncloses = estimateEncloses;
+	}
+
+	// Returns an unevaluated candidate with the given inputs, ordered until it is
+	// evaluated by the cheap enclosure of its output given by applyEstimate() if
+	// there is one, and otherwise by this candidate's output, along with the least
+	// possible derivative heuristic values
+	private MinBox estimatedBox(List<CRIntervalCode> newInputs) {
+		List<CRIntervalCode> estimate = f.applyEstimate(newInputs);
+		return new MinBox(initials, newInputs, f, ds, strategy, estimate != null ? estimate : getOrderingOutput(),
+				Collections.nCopies(newInputs.size(), 0.0), estimate != null);
+	}
+
+	// Returns true only if the output intervals and the derivative heuristic values
+	// of the candidate have been computed
+	public boolean isEvaluated() {
+		return output != null && derivatives != null;
+	}
+
+	// Computes the output intervals and the derivative heuristic values of the
+	// candidate, if this has not been done yet
+	public void evaluate() {
+		getOutput();
+		getDerivatives();
+	}
+
+	// Computes the derivative heuristic values at the centre of the inputs, in
+	// double arithmetic as they need not be exact, falling back to CR evaluation
+	// where this overflows
+	private List<Double> computeDerivatives() {
+		double[] centres = new double[inputs.size()];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = inputs.get(i).getDouble();
+		}
 		List<Double> derivatives = new ArrayList<>();
-		for (CRFunctionModulus d : ds) {
-			derivatives.add(d.applyCR(inputs).doubleValue());
+		if (ds == null) {
+			double[] valueGradient = f.valueGradientDouble(centres);
+			for (int i = 1; i < valueGradient.length; i++) {
+				derivatives.add(valueGradient[i]);
+			}
+			if (derivatives.stream().allMatch(d -> Double.isFinite(d)))
+				return derivatives;
+			derivatives.clear();
+			List<CR> crCentres = inputs.stream().map(x -> x.getCR()).collect(Collectors.toList());
+			for (CR d : f.gradient(crCentres).getValue()) {
+				derivatives.add(d == null ? 0.0 : d.doubleValue());
+			}
+		} else {
+			for (CRFunctionModulus d : ds) {
+				double derivative = d.functionDouble(centres);
+				derivatives.add(Double.isFinite(derivative) ? derivative : d.applyCR(inputs).doubleValue());
+			}
+		}
+		return derivatives;
+	}
+
+	// Returns true only if the candidate cannot contain a global minimiser as the
+	// function is strictly monotone in some input over it, decreasing towards a
+	// face of the candidate inside the search area, so that near every point of
+	// the candidate it is lower just beyond that face. The partial derivatives are
+	// enclosed over the inputs in double interval arithmetic, by the given partial
+	// derivatives if any and otherwise by automatic differentiation
+	public boolean excludedByMonotonicity() {
+		DoubleInterval[] boxes = new DoubleInterval[inputs.size()];
+		DoubleInterval[] distances = new DoubleInterval[inputs.size()];
+		for (int i = 0; i < boxes.length; i++) {
+			boxes[i] = DoubleInterval.of(inputs.get(i));
+			distances[i] = DoubleInterval.ZERO;
+		}
+		DoubleInterval[] gradient = ds == null ? f.gradientInterval(boxes) : null;
+		for (int i = 0; i < boxes.length; i++) {
+			DoubleInterval derivative = ds == null ? gradient[i + 1] : ds.get(i).evaluateInterval(boxes, distances)[0];
+			if (derivative.getLower() > 0
+					&& inputs.get(i).getLower().compareTo(initials.get(i).getLower()) > 0)
+				return true;
+			if (derivative.getUpper() < 0
+					&& inputs.get(i).getUpper().compareTo(initials.get(i).getUpper()) < 0)
+				return true;
+		}
+		return false;
+	}
+
+	// Applies a Krawczyk (interval Newton) step to the gradient system of the
+	// function over a candidate strictly inside the search area, where a global
+	// minimiser must be a stationary point. With c the centres of the inputs X, H
+	// the Hessian enclosed over X and Y an approximate inverse of its midpoint,
+	// every stationary point in X lies in K = c - Y grad f(c) + (I - Y H)(X - c),
+	// and if K lies in the interior of X then X holds exactly one, so the candidate
+	// is marked as certified. Returns null where the step gives nothing better than
+	// branching, an empty list if X holds no stationary point, and otherwise the
+	// single unevaluated candidate whose inputs are the finest codes enclosing X
+	// intersected with K
+	public List<MinBox> contract() {
+		int n = inputs.size();
+		DoubleInterval[] boxes = new DoubleInterval[n];
+		DoubleInterval[] centres = new DoubleInterval[n];
+		DoubleInterval[] distances = new DoubleInterval[n];
+		for (int i = 0; i < n; i++) {
+			if (inputs.get(i).getLower().compareTo(initials.get(i).getLower()) <= 0
+					|| inputs.get(i).getUpper().compareTo(initials.get(i).getUpper()) >= 0)
+				return null;
+			boxes[i] = DoubleInterval.of(inputs.get(i));
+			centres[i] = DoubleInterval.of(inputs.get(i).getBigInt(), inputs.get(i).getPrecision());
+			distances[i] = DoubleInterval.ZERO;
+		}
+		// Enclose the gradient at the centres and the Hessian over the inputs
+		DoubleInterval[] gradient = new DoubleInterval[n];
+		DoubleInterval[][] hessian = new DoubleInterval[n][n];
+		if (ds == null) {
+			DoubleInterval[] valueGradient = f.gradientInterval(centres);
+			DoubleInterval[][] h = f.hessianInterval(boxes);
+			for (int i = 0; i < n; i++) {
+				gradient[i] = valueGradient[i + 1];
+				for (int j = 0; j < n; j++)
+					hessian[i][j] = h[i + 1][j + 1];
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				gradient[i] = ds.get(i).evaluateInterval(centres, distances)[0];
+				DoubleInterval[] row = ds.get(i).gradientInterval(boxes);
+				for (int j = 0; j < n; j++)
+					hessian[i][j] = row[j + 1];
+			}
+		}
+		double[][] y = inverseMidpoint(hessian);
+		if (y == null)
+			return null;
+		// Bound K and intersect it with X, dimension by dimension
+		List<CRIntervalCode> newInputs = new ArrayList<>(inputs);
+		boolean interior = true;
+		boolean contracted = false;
+		for (int i = 0; i < n; i++) {
+			DoubleInterval k = centres[i];
+			for (int j = 0; j < n; j++) {
+				DoubleInterval yij = new DoubleInterval(y[i][j], y[i][j]);
+				DoubleInterval a = new DoubleInterval(i == j ? 1 : 0, i == j ? 1 : 0);
+				for (int l = 0; l < n; l++) {
+					a = a.subtract(new DoubleInterval(y[i][l], y[i][l]).multiply(hessian[l][j]));
+				}
+				k = k.subtract(yij.multiply(gradient[j])).add(a.multiply(boxes[j].subtract(centres[j])));
+			}
+			if (!k.isFinite())
+				return null;
+			CRIntervalCode x = inputs.get(i);
+			Dyadic lower = Dyadic.of(k.getLower());
+			Dyadic upper = Dyadic.of(k.getUpper());
+			if (upper.compareTo(x.getLower()) < 0 || lower.compareTo(x.getUpper()) > 0)
+				return Collections.emptyList();
+			interior &= lower.compareTo(x.getLower()) > 0 && upper.compareTo(x.getUpper()) < 0;
+			if (lower.compareTo(x.getLower()) < 0)
+				lower = x.getLower();
+			if (upper.compareTo(x.getUpper()) > 0)
+				upper = x.getUpper();
+			CRIntervalCode code = enclosingCode(lower, upper, x.getPrecision());
+			if (code != null && code.inInterval(initials.get(i))) {
+				newInputs.set(i, code);
+				contracted = true;
+			}
 		}
-		this.derivatives = derivatives;
+		if (interior)
+			certified = true;
+		if (!contracted)
+			return null;
+		List<MinBox> newBoxes = new ArrayList<>();
+		newBoxes.add(estimatedBox(newInputs));
+		return newBoxes;
+	}
+
+	// Returns an approximate inverse of the matrix of midpoints of the given
+	// intervals, by Gauss-Jordan elimination with partial pivoting in double
+	// arithmetic, or null if this is not finite or the matrix is singular
+	private static double[][] inverseMidpoint(DoubleInterval[][] m) {
+		int n = m.length;
+		double[][] a = new double[n][2 * n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				a[i][j] = m[i][j].getLower() / 2 + m[i][j].getUpper() / 2;
+			}
+			a[i][n + i] = 1;
+		}
+		for (int c = 0; c < n; c++) {
+			int pivot = c;
+			for (int r = c + 1; r < n; r++) {
+				if (Math.abs(a[r][c]) > Math.abs(a[pivot][c]))
+					pivot = r;
+			}
+			if (!(Math.abs(a[pivot][c]) > 0) || !Double.isFinite(a[pivot][c]))
+				return null;
+			double[] row = a[pivot];
+			a[pivot] = a[c];
+			a[c] = row;
+			for (int j = 2 * n - 1; j >= c; j--)
+				a[c][j] /= a[c][c];
+			for (int r = 0; r < n; r++) {
+				if (r == c)
+					continue;
+				for (int j = 2 * n - 1; j >= c; j--)
+					a[r][j] -= a[r][c] * a[c][j];
+			}
+		}
+		double[][] inverse = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (!Double.isFinite(a[i][n + j]))
+					return null;
+				inverse[i][j] = a[i][n + j];
+			}
+		}
+		return inverse;
+	}
+
+	// Returns the code at the finest precision level below p whose interval
+	// contains [lower, upper], or null if there is none; such a code exists at
+	// one of the two levels just above the width of [lower, upper], as each
+	// boundary between codes lies at the odd multiples of 2^(q-1) for one level q
+	private static CRIntervalCode enclosingCode(Dyadic lower, Dyadic upper, int p) {
+		Dyadic width = upper.subtract(lower);
+		Dyadic middle = lower.add(upper).shiftLeft(-1);
+		for (int q = width.signum() == 0 ? p - 2 * CRFunctionModulus.modulus_bits : width.ceilLog2(); q < p; q++) {
+			CRIntervalCode code = new CRIntervalCode(middle.round(q), q);
+			if (code.getLower().compareTo(lower) <= 0 && code.getUpper().compareTo(upper) >= 0)
+				return code;
+		}
+		return null;
 	}
 
 	// Branch a search candidate in one dimension to return a list of search
 	// candidates whose inputs are at the next level of precision and completely
-	// cover the original candidate in that dimension
+	// cover the original candidate in that dimension. The new candidates are not
+	// evaluated; until they are, they are ordered by cheap enclosures of their
+	// outputs and the least possible derivative heuristic values
 	public List<MinBox> branchArg(int i) {
 		List<MinBox> newBoxes = new ArrayList<>();
 		for (CRIntervalCode newArg : inputs.get(i).branch()) {
 			if (newArg.inInterval(initials.get(i))) {
 				List<CRIntervalCode> replacedArgs = new ArrayList<>(inputs);
 				replacedArgs.set(i, newArg);
-				newBoxes.add(new MinBox(initials, replacedArgs, f, ds));
+				newBoxes.add(estimatedBox(replacedArgs));
 			}
 		}
 		return newBoxes;
@@ -63,18 +325,27 @@ class MinBox {
 		return newBoxes;
 	}
 
-	// Return those search candidates in a given list that cannot contain a global
-	// minimiser
-	public static ArrayList<MinBox> getEclipsed(ArrayList<MinBox> list) {
-		ArrayList<MinBox> noMinimum = new ArrayList<>();
-		for (MinBox arg0 : list) {
-			for (MinBox arg1 : list) {
-				if (!noMinimum.contains(arg0) && MinBoxCompare.AEclipsesB(arg1, arg0)) {
-					noMinimum.add(arg0);
-				}
-			}
-		}
-		return noMinimum;
+	// Returns a candidate for the same function and search area whose input in
+	// dimension i is the code at the finest precision level below this candidate's
+	// that contains [lower, upper], or null if there is none inside the search area
+	public MinBox narrowArg(int i, Dyadic lower, Dyadic upper) {
+		CRIntervalCode code = enclosingCode(lower, upper, inputs.get(i).getPrecision());
+		if (code == null || !code.inInterval(initials.get(i)))
+			return null;
+		List<CRIntervalCode> newInputs = new ArrayList<>(inputs);
+		newInputs.set(i, code);
+		return new MinBox(initials, newInputs, f, ds, strategy);
+	}
+
+	// Return the strategy computing the output intervals of a search candidate
+	public BoundingStrategy getStrategy() {
+		return strategy;
+	}
+
+	// Returns true only if a Krawczyk step in contract() has proved that the
+	// candidate holds exactly one stationary point of the function
+	public boolean isCertified() {
+		return certified;
 	}
 
 	// Return the input intervals of a search candidate
@@ -82,20 +353,87 @@ class MinBox {
 		return inputs;
 	}
 
-	// Return the output intervals of a search candidate
+	// Return the output intervals of a search candidate, computing them by the
+	// bounding strategy if this has not been done yet
 	public List<CRIntervalCode> getOutput() {
-		return output;
+		List<CRIntervalCode> result = output;
+		if (result == null) {
+			synchronized (this) {
+				result = output;
+				if (result == null) {
+					result = strategy.bound(f, inputs);
+					output = result;
+					estimatedOutput = null;
+				}
+			}
+		}
+		return result;
+	}
+
+	// Return the output intervals of a search candidate if it has been evaluated,
+	// and otherwise the estimate it was constructed with (evaluating it if there
+	// is none). The estimate is only fit for ordering candidates, as it need not
+	// enclose the output
+	public List<CRIntervalCode> getOrderingOutput() {
+		List<CRIntervalCode> result = output;
+		if (result != null)
+			return result;
+		synchronized (this) {
+			if (estimatedOutput != null)
+				return estimatedOutput;
+		}
+		return getOutput();
+	}
+
+	// Return the output intervals of a search candidate if it has been evaluated,
+	// and otherwise the estimate it was constructed with if this encloses the
+	// output, or null if there is neither; this never evaluates the candidate
+	public List<CRIntervalCode> getKnownOutput() {
+		List<CRIntervalCode> result = output;
+		if (result != null)
+			return result;
+		synchronized (this) {
+			if (output != null)
+				return output;
+			return estimateEncloses ? estimatedOutput : null;
+		}
 	}
 
 	// Return the partial derivative heuristic value of the i-th dimension of a
 	// search candidate
 	public double getDerivative(int i) {
-		return derivatives.get(i);
+		return getDerivatives().get(i);
 	}
 
-	// Return all partial derivative heuristic values for this search candidate
+	// Return all partial derivative heuristic values for this search candidate,
+	// computing them if this has not been done yet
 	public List<Double> getDerivatives() {
-		return derivatives;
+		List<Double> result = derivatives;
+		if (result == null) {
+			synchronized (this) {
+				result = derivatives;
+				if (result == null) {
+					result = computeDerivatives();
+					derivatives = result;
+					estimatedDerivatives = null;
+				}
+			}
+		}
+		return result;
+	}
+
+	// Return all partial derivative heuristic values for this search candidate if
+	// they have been computed, and otherwise the estimate it was constructed with
+	// (computing them if there is none)
+	public List<Double> getOrderingDerivatives() {
+		List<Double> result = derivatives;
+		if (result != null)
+			return result;
+		synchronized (this) {
+			if (estimatedDerivatives != null)
+				return estimatedDerivatives;
+		}
+		return getDerivatives();
 	}
 
 	// Returns true only if all inputs of the two search candidates are identical
@@ -108,15 +446,6 @@ class MinBox {
 		return true;
 	}
 
-	// Returns true only if there is an identical search candidate in the list
-	public boolean alreadyIn(List<MinBox> history) {
-		for (MinBox box : history) {
-			if (sameAs(box))
-				return true;
-		}
-		return false;
-	}
-
 	// Returns a string used for printing information about the search candidate
 	public String toString() {
 		return getInputs().toString() + " ==> " + getOutput().toString() + " -- " + getDerivatives() + "\n";
@@ -138,13 +467,14 @@ class MinBox {
 	}
 
 	// Returns a string for the interval represented by the entire output space of a
-	// given list of search candidates
+	// given list of search candidates, from their known outputs, evaluating only
+	// the candidates that have none
 	public static String unionOutput(ArrayList<MinBox> frontier) {
-		List<CRIntervalCode> output = frontier.get(0).getOutput();
+		List<CRIntervalCode> output = knownOrEvaluated(frontier.get(0));
 		CRIntervalCode lower = output.get(0);
 		CRIntervalCode upper = output.get(output.size() - 1);
 		for (int j = 1; j < frontier.size(); j++) {
-			output = frontier.get(j).getOutput();
+			output = knownOrEvaluated(frontier.get(j));
 			CRIntervalCode maybeLower = output.get(0);
 			CRIntervalCode maybeUpper = output.get(output.size() - 1);
 			if (MinBoxCompare.compareIntervalsLower(maybeLower, lower) == -1)
@@ -155,6 +485,12 @@ class MinBox {
 		return "[" + lower.goDown(-1).midString() + "," + upper.goDown(+1).midString() + "]";
 	}
 
+	// Returns the known output of the candidate, evaluating it if there is none
+	private static List<CRIntervalCode> knownOrEvaluated(MinBox box) {
+		List<CRIntervalCode> output = box.getKnownOutput();
+		return output != null ? output : box.getOutput();
+	}
+
 	// Returns a string detailing the entire search area of a given list of search
 	// candidates
 	public static String unionFrontier(ArrayList<MinBox> frontier, int numParams) {
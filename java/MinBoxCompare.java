@@ -3,16 +3,17 @@ import java.util.Comparator;
 
 /*
  * Comparator class for search candidates, based first on local information and then global.
+ * Candidates that have not been evaluated yet are compared by their estimates.
  */
 class MinBoxMCompareD implements Comparator<MinBox> {
 
 	public static int compareDerivatives(MinBox a, MinBox b) {
 		double da = 0;
 		double db = 0;
-		for (Double d : a.getAbsDerivatives())
-			da += d;
-		for (Double d : b.getAbsDerivatives())
-			db += d;
+		for (Double d : a.getOrderingDerivatives())
+			da += Math.abs(d);
+		for (Double d : b.getOrderingDerivatives())
+			db += Math.abs(d);
 		if (da == db)
 			return 0;
 		double min = Math.min(da, db);
@@ -24,25 +25,33 @@ class MinBoxMCompareD implements Comparator<MinBox> {
 	public int compare(MinBox a, MinBox b) {
 		int c = MinBoxMCompareD.compareDerivatives(a, b);
 		if (c == 0)
-			return MinBoxCompare.compareIntervalsLower(a.getOutput().get(0), b.getOutput().get(0));
+			return MinBoxCompare.compareIntervalsLower(a.getOrderingOutput().get(0), b.getOrderingOutput().get(0));
 		return c;
 	}
 }
 
 /*
  * Comparator class for search candidates, based first on gobal information and
- * then local.
+ * then local. Candidates that have not been evaluated yet are compared by their estimates.
  */
 class MinBoxCompare implements Comparator<MinBox> {
 
+	// Returns a comparator based first on local information and then global, for
+	// ordering the search area in the local phase of the search
+	public static Comparator<MinBox> local() {
+		return new MinBoxMCompareD();
+	}
+
 	public int compare(MinBox a, MinBox b) {
-		if (a.getOutput().get(0).getPrecision() == b.getOutput().get(0).getPrecision()) {
-			int c = a.getOutput().get(0).getBigInt().compareTo(b.getOutput().get(0).getBigInt());
+		CRIntervalCode aLower = a.getOrderingOutput().get(0);
+		CRIntervalCode bLower = b.getOrderingOutput().get(0);
+		if (aLower.getPrecision() == bLower.getPrecision()) {
+			int c = aLower.getBigInt().compareTo(bLower.getBigInt());
 			if (c == 0)
 				return MinBoxMCompareD.compareDerivatives(a, b);
 			return c;
 		} else {
-			return compareIntervalsLower(a.getOutput().get(0), b.getOutput().get(0));
+			return compareIntervalsLower(aLower, bLower);
 		}
 	}
 
@@ -125,18 +134,24 @@ class MinBoxCompare implements Comparator<MinBox> {
 	// Returns true only if the upper-bound of a's output interval is strictly less
 	// than the lower-bound of b's output
 	public static boolean AEclipsesB(MinBox a, MinBox b) {
+		return AEclipsesB(a.getOutput().get(2), b.getOutput().get(0));
+	}
+
+	// Returns true only if the upper interval code a is strictly less than the
+	// lower interval code b
+	public static boolean AEclipsesB(CRIntervalCode a, CRIntervalCode b) {
 		BigInteger scaled_output, fixed_output;
 		int scaled_outPrecision, fixed_outPrecision;
-		if (a.getOutput().get(2).getPrecision() < b.getOutput().get(0).getPrecision()) {
-			fixed_output = a.getOutput().get(2).getBigInt();
-			fixed_outPrecision = a.getOutput().get(2).getPrecision();
-			scaled_output = b.getOutput().get(0).getBigInt();
-			scaled_outPrecision = b.getOutput().get(0).getPrecision();
+		if (a.getPrecision() < b.getPrecision()) {
+			fixed_output = a.getBigInt();
+			fixed_outPrecision = a.getPrecision();
+			scaled_output = b.getBigInt();
+			scaled_outPrecision = b.getPrecision();
 		} else {
-			fixed_output = b.getOutput().get(0).getBigInt();
-			fixed_outPrecision = b.getOutput().get(0).getPrecision();
-			scaled_output = a.getOutput().get(2).getBigInt();
-			scaled_outPrecision = a.getOutput().get(2).getPrecision();
+			fixed_output = b.getBigInt();
+			fixed_outPrecision = b.getPrecision();
+			scaled_output = a.getBigInt();
+			scaled_outPrecision = a.getPrecision();
 		}
 		int diff = 0;
 		while (scaled_outPrecision != fixed_outPrecision) {
@@ -148,7 +163,7 @@ class MinBoxCompare implements Comparator<MinBox> {
 		}
 		if (diff == 0)
 			diff = 1;
-		if (a.getOutput().get(2).getPrecision() < b.getOutput().get(0).getPrecision()) {
+		if (a.getPrecision() < b.getPrecision()) {
 			if (fixed_output.compareTo(scaled_output) < 0) {
 				fixed_output = fixed_output.add(BigInteger.valueOf(diff));
 				return fixed_output.compareTo(scaled_output) < 0;
@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*
+ * The search area of the branch-and-bound algorithm, i.e. the search candidates still to be branched.
+ * Candidates are kept in an array-backed binary heap ordered by a MinBox comparator, so that
+ * the next candidate to be branched is found in O(1) and candidates are added or removed in O(log n).
+ * The ordering can be replaced (e.g. when switching from global to local criteria) by
+ * re-heapifying the candidates in a single O(n) pass.
+ */
+class MinBoxFrontier {
+
+	private ArrayList<MinBox> heap = new ArrayList<>();
+	private Comparator<MinBox> order;
+
+	// Construct an empty search area ordered by the given comparator
+	public MinBoxFrontier(Comparator<MinBox> order) {
+		this.order = order;
+	}
+
+	// Returns the number of candidates in the search area
+	public int size() {
+		return heap.size();
+	}
+
+	// Returns true only if there are no candidates in the search area
+	public boolean isEmpty() {
+		return heap.isEmpty();
+	}
+
+	// Returns the least candidate under the current ordering without removing it
+	public MinBox peek() {
+		return heap.get(0);
+	}
+
+	// Adds a candidate to the search area
+	public void push(MinBox box) {
+		heap.add(box);
+		siftUp(heap.size() - 1);
+	}
+
+	// Removes and returns the least candidate under the current ordering
+	public MinBox pop() {
+		MinBox top = heap.get(0);
+		MinBox last = heap.remove(heap.size() - 1);
+		if (!heap.isEmpty()) {
+			heap.set(0, last);
+			siftDown(0);
+		}
+		return top;
+	}
+
+	// Replaces the ordering of the search area, re-keying all candidates in one
+	// pass
+	public void reorder(Comparator<MinBox> order) {
+		this.order = order;
+		heapify();
+	}
+
+	// Removes all candidates satisfying the given predicate, and returns true only
+	// if any were removed
+	public boolean removeIf(Predicate<MinBox> p) {
+		boolean removed = heap.removeIf(p);
+		if (removed)
+			heapify();
+		return removed;
+	}
+
+	// Returns the candidates of the search area in no particular order
+	public ArrayList<MinBox> toList() {
+		return new ArrayList<>(heap);
+	}
+
+	// Returns the candidates of the search area sorted by the current ordering
+	public List<MinBox> toSortedList() {
+		List<MinBox> sorted = toList();
+		sorted.sort(order);
+		return sorted;
+	}
+
+	private void heapify() {
+		for (int i = heap.size() / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	private void siftUp(int i) {
+		MinBox box = heap.get(i);
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			MinBox p = heap.get(parent);
+			if (order.compare(box, p) >= 0)
+				break;
+			heap.set(i, p);
+			i = parent;
+		}
+		heap.set(i, box);
+	}
+
+	private void siftDown(int i) {
+		int n = heap.size();
+		MinBox box = heap.get(i);
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= n)
+				break;
+			if (child + 1 < n && order.compare(heap.get(child + 1), heap.get(child)) < 0)
+				child++;
+			if (order.compare(heap.get(child), box) >= 0)
+				break;
+			heap.set(i, heap.get(child));
+			i = child;
+		}
+		heap.set(i, box);
+	}
+
+}
@@ -0,0 +1,56 @@
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * The set of search candidates that have already been added to the search area.
+ * A candidate is identified by its list of input interval codes (k,p), which is hashed,
+ * so that membership is checked in O(1) rather than by comparing against every earlier candidate.
+ * If a capacity is given, only that many of the most recently seen candidates are remembered;
+ * forgetting a candidate is safe, as it can only cause the candidate to be evaluated again.
+ */
+class MinBoxHistory {
+
+	private Set<List<CRIntervalCode>> seen;
+
+	// Construct an unbounded history
+	public MinBoxHistory() {
+		this(0);
+	}
+
+	// Construct a history remembering at most 'capacity' candidates, or an
+	// unbounded history if capacity <= 0
+	public MinBoxHistory(final int capacity) {
+		if (capacity <= 0) {
+			seen = new HashSet<>();
+		} else {
+			seen = Collections.newSetFromMap(new LinkedHashMap<List<CRIntervalCode>, Boolean>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<List<CRIntervalCode>, Boolean> eldest) {
+					return size() > capacity;
+				}
+			});
+		}
+	}
+
+	// Adds the candidate to the history, returning true only if it was not already
+	// there
+	public boolean add(MinBox box) {
+		return seen.add(box.getInputs());
+	}
+
+	// Returns true only if an identical candidate is in the history
+	public boolean contains(MinBox box) {
+		return seen.contains(box.getInputs());
+	}
+
+	// Returns the number of candidates remembered
+	public int size() {
+		return seen.size();
+	}
+
+}
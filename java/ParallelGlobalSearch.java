@@ -0,0 +1,309 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javafx.util.Pair;
+
+/*
+ * A parallel implementation of the branch-and-bound algorithm of GlobalSearchMain, which likewise
+ * first narrows down the search area for functions of one input by a UnivariateSearch.
+ * A pool of ForkJoin workers share one search area and one incumbent. Each worker repeatedly takes
+ * the best candidate from the search area and, if it has not been evaluated yet, evaluates it (the
+ * expensive step, done without holding any lock) and puts it back under its actual ordering;
+ * otherwise it branches it and adds the new, unevaluated candidates back.
+ * The incumbent (least output upper-bound seen so far) is updated atomically, so every worker
+ * prunes against the best bound found by any of them. At the switch to the local phase, the workers
+ * first finish the candidates they hold and evaluate those in the search area with no known output,
+ * so that the reported enclosure covers the whole search area and is taken without evaluating
+ * anything under the lock. Pruning and the reported enclosure are exactly those of the sequential
+ * algorithm; only the order in which candidates are branched differs.
+ */
+class ParallelGlobalSearch {
+
+	private int timeGoal;
+	private int numParameters;
+	private int parallelism;
+	private CRFunctionModulus function;
+	private MinBoxFrontier frontier = new MinBoxFrontier(new MinBoxCompare());
+	// The cache the function is evaluated through, as for GlobalSearchMain
+	private CRFunctionModulus cache;
+	private MinBoxHistory history;
+	private AtomicReference<MinBox> incumbent;
+	// Guards frontier, history, inFlight, unknown, switched, globalSearchResult and
+	// certified
+	private final Object lock = new Object();
+	private int inFlight = 0;
+	// The candidates with no known output taken out of the search area to be
+	// evaluated before the switch to the local phase (null until then)
+	private List<MinBox> unknown = null;
+	private boolean switched = false;
+	private String globalSearchResult = "";
+	private AtomicLong branched = new AtomicLong();
+	private AtomicLong discarded = new AtomicLong();
+	private List<MinBox> certified = new ArrayList<>();
+
+	// Initialise the algorithm; derivative may be null, in which case the partial
+	// derivatives are computed by automatic differentiation of the function
+	public ParallelGlobalSearch(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
+			int startPrecision, int timeGoal, int parallelism) {
+		this(function, derivative, numParameters, startPrecision, timeGoal, parallelism, 0);
+	}
+
+	// Initialise the algorithm, remembering at most historyCapacity evaluated
+	// candidates (or all of them if historyCapacity <= 0)
+	public ParallelGlobalSearch(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
+			int startPrecision, int timeGoal, int parallelism, int historyCapacity) {
+		this(function, derivative, numParameters, startPrecision, timeGoal, parallelism, historyCapacity,
+				BoundingStrategy.modulus());
+	}
+
+	// Initialise the algorithm, bounding the output of each candidate by the given
+	// strategy
+	public ParallelGlobalSearch(CRFunctionModulus function, List<CRFunctionModulus> derivative, int numParameters,
+			int startPrecision, int timeGoal, int parallelism, int historyCapacity, BoundingStrategy strategy) {
+		this.timeGoal = timeGoal;
+		this.numParameters = numParameters;
+		this.parallelism = parallelism;
+		this.history = new MinBoxHistory(historyCapacity);
+		List<CRIntervalCode> initialInputs = new ArrayList<>();
+		for (int i = 0; i < numParameters; i++) {
+			initialInputs.add(new CRIntervalCode(BigInteger.ZERO, startPrecision));
+		}
+		// Functions that cannot be evaluated exactly are evaluated through a cache, so
+		// that candidates evaluated again, and candidates sharing a centre, share work
+		if (function.evaluateDyadic(CRFunctionModulus.zeros(numParameters),
+				CRFunctionModulus.zeros(numParameters)) == null) {
+			cache = CRFunctionModulus.cached(function, GlobalSearchMain.cacheCapacity);
+			function = cache;
+		}
+		this.function = function;
+		// Initialise the search area as a single candidate
+		MinBox initial = new MinBox(initialInputs, initialInputs, function, derivative, strategy);
+		incumbent = new AtomicReference<>(initial);
+		frontier.push(initial);
+		history.add(initial);
+	}
+
+	// Replace the incumbent if the given candidate has a lower output upper-bound
+	private void updateIncumbent(MinBox box) {
+		while (true) {
+			MinBox best = incumbent.get();
+			if (MinBoxCompare.compareIntervalsUpper(box.getOutput().get(2), best.getOutput().get(2)) >= 0)
+				return;
+			if (incumbent.compareAndSet(best, box))
+				return;
+		}
+	}
+
+	// Returns true only if the candidate cannot contain a global minimiser, i.e. the
+	// lower-bound of its known output is above the least output upper-bound seen so
+	// far; candidates with no known output are not evaluated for this
+	private boolean eclipsed(MinBox box) {
+		List<CRIntervalCode> output = box.getKnownOutput();
+		return output != null && MinBoxCompare.AEclipsesB(incumbent.get().getOutput().get(2), output.get(0));
+	}
+
+	// Returns a summary of the statistics of the cache the function is evaluated
+	// through, or null if it can be evaluated exactly and so has none
+	public String getCacheStatistics() {
+		return CRFunctionModulus.cacheStatistics(cache);
+	}
+
+	// Returns the number of candidates branched so far
+	public long getBranched() {
+		return branched.get();
+	}
+
+	// Returns the number of candidates discarded so far as they cannot contain a
+	// global minimiser
+	public long getDiscarded() {
+		return discarded.get();
+	}
+
+	// Returns the candidates proved by Krawczyk steps in the local phase of the
+	// search to hold exactly one stationary point each, as for GlobalSearchMain
+	public List<MinBox> getCertified() {
+		synchronized (lock) {
+			return new ArrayList<>(certified);
+		}
+	}
+
+	// Algorithm
+	public Pair<String, Pair<CR, CR>> minimise() {
+		long startTime = System.nanoTime();
+		// A function of one input is first minimised by the Piyavskii-Shubert search, as
+		// for GlobalSearchMain, before the workers start
+		if (numParameters == 1) {
+			MinBox initial;
+			synchronized (lock) {
+				initial = frontier.pop();
+			}
+			List<MinBox> boxes = GlobalSearchMain.narrowUnivariate(initial, function, timeGoal / 2);
+			synchronized (lock) {
+				for (MinBox box : boxes) {
+					history.add(box);
+					frontier.push(box);
+				}
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> workers = new ArrayList<>();
+			for (int i = 0; i < parallelism; i++) {
+				// Workers run under the budgets of the calling thread
+				workers.add(pool.submit(CRBudget.propagate(() -> work(startTime))));
+			}
+			for (ForkJoinTask<?> worker : workers) {
+				worker.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		// Return results of the global (and local) search; the local estimate is the
+		// incumbent, the evaluated candidate with the least output upper-bound seen, as
+		// the front of the search area need not have been evaluated
+		MinBox current = incumbent.get();
+		return new Pair<>(globalSearchResult,
+				new Pair<>(current.getInputs().get(0).getCR(), current.getOutput().get(1).getCR()));
+	}
+
+	// The loop run by each worker until the time goal is reached
+	private void work(long startTime) {
+		while (true) {
+			MinBox current = null;
+			boolean local = false;
+			CRBudget.checkCurrent();
+			synchronized (lock) {
+				long time = (System.nanoTime() - startTime) / 1000000;
+				if (time >= timeGoal)
+					return;
+				// Order the search area by global criteria for the first 80% of the time,
+				// and local criteria (i.e. derivative heuristics) for the last 20% of the
+				// time; the union of the search area is taken at the switch, so nothing
+				// may be in flight, and every candidate in it must have a known output
+				if (time >= timeGoal * 0.8 && !switched) {
+					if (unknown == null && inFlight == 0) {
+						unknown = new ArrayList<>();
+						for (MinBox box : frontier.toList()) {
+							if (box.getKnownOutput() == null)
+								unknown.add(box);
+						}
+						frontier.removeIf(x -> x.getKnownOutput() == null);
+					}
+					if (unknown == null || unknown.isEmpty() && inFlight > 0) {
+						try {
+							lock.wait(1);
+						} catch (InterruptedException e) {
+							throw new AbortedError();
+						}
+						continue;
+					}
+					if (unknown.isEmpty()) {
+						int size = frontier.size();
+						frontier.removeIf(x -> eclipsed(x));
+						discarded.addAndGet(size - frontier.size());
+						if (!frontier.isEmpty())
+							globalSearchResult = MinBox.unionFrontier(frontier.toList(), numParameters);
+						switched = true;
+						frontier.reorder(MinBoxCompare.local());
+					} else {
+						// Evaluate the candidates with no known output outside the lock, as
+						// any other candidate reaching the front of the search area
+						current = unknown.remove(unknown.size() - 1);
+						inFlight++;
+					}
+				}
+				if (current == null) {
+					// Discard candidates whose known output shows they cannot contain a
+					// global minimiser as they reach the front of the search area
+					while (!frontier.isEmpty() && eclipsed(frontier.peek())) {
+						frontier.pop();
+						discarded.incrementAndGet();
+					}
+					if (frontier.isEmpty()) {
+						// Other workers may still be about to add candidates
+						if (inFlight == 0)
+							return;
+						try {
+							lock.wait(1);
+						} catch (InterruptedException e) {
+							throw new AbortedError();
+						}
+						continue;
+					}
+					current = frontier.pop();
+					local = switched;
+					inFlight++;
+				}
+			}
+			if (!current.isEvaluated()) {
+				// Evaluate a candidate reaching the front of the search area, and put it
+				// back in its place under its actual ordering unless it is eclipsed or the
+				// function is monotone over it
+				boolean evaluated = false;
+				boolean monotone = false;
+				try {
+					current.evaluate();
+					updateIncumbent(current);
+					monotone = current.excludedByMonotonicity();
+					evaluated = true;
+				} finally {
+					synchronized (lock) {
+						if (evaluated && !monotone && !eclipsed(current)) {
+							frontier.push(current);
+						} else if (evaluated) {
+							discarded.incrementAndGet();
+						}
+						inFlight--;
+						lock.notifyAll();
+					}
+				}
+				continue;
+			}
+			List<MinBox> newBoxes = Collections.emptyList();
+			try {
+				// In the local phase, first try to contract the candidate around the
+				// stationary points in it by a Krawczyk step
+				List<MinBox> contracted = local ? current.contract() : null;
+				if (contracted != null) {
+					newBoxes = contracted;
+					if (contracted.isEmpty())
+						discarded.incrementAndGet();
+				} else {
+					// Otherwise perform the branching process; if there are multiple
+					// parameters, this is guided by the partial derivatives
+					int j = 0;
+					if (numParameters > 1) {
+						double maxDerivative = Collections.max(current.getAbsDerivatives());
+						j = current.getAbsDerivatives().indexOf(maxDerivative);
+					}
+					newBoxes = current.branchArg(j);
+					branched.incrementAndGet();
+				}
+			} finally {
+				synchronized (lock) {
+					if (current.isCertified())
+						GlobalSearchMain.addCertified(certified, current);
+					// Check whether this box has been seen before, and add it to the search
+					// area if not, unless its cheap output enclosure already shows it is
+					// eclipsed; it is only evaluated once it reaches the front
+					for (MinBox newBox : newBoxes) {
+						if (eclipsed(newBox)) {
+							discarded.incrementAndGet();
+						} else if (history.add(newBox)) {
+							frontier.push(newBox);
+						}
+					}
+					inFlight--;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+}
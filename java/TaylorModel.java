@@ -0,0 +1,234 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A Taylor model of a function over a box: a polynomial P in the offsets h_i = x_i - c_i from the centre c
+ * of the box, of total degree at most 'order', with exact dyadic coefficients, together with a remainder
+ * bound r, such that the function is within r of P(h) for all |h_i| <= e_i, the half-widths of the box.
+ * Sums and products of models are models of the sums and products of the functions; the terms of a
+ * product above the order are bounded over the box and moved into the remainder. Where the function is
+ * smooth, the remainder shrinks with the (order+1)-th power of the widths, so bounding the polynomial
+ * gives much tighter enclosures of the output than the modulus does on small boxes.
+ */
+public class TaylorModel {
+
+	private final int order;
+	private final Dyadic[] halfWidths;
+	// The non-zero coefficients of the monomials h^a, by exponent vector a
+	private final Map<List<Integer>, Dyadic> terms;
+	private final Dyadic remainder;
+
+	private TaylorModel(int order, Dyadic[] halfWidths, Map<List<Integer>, Dyadic> terms, Dyadic remainder) {
+		this.order = order;
+		this.halfWidths = halfWidths;
+		this.terms = terms;
+		this.remainder = remainder;
+	}
+
+	// Returns the model of the i-th input, c_i + h_i, over the box with the given
+	// centres and half-widths
+	public static TaylorModel variable(int i, Dyadic[] centres, Dyadic[] halfWidths, int order) {
+		Map<List<Integer>, Dyadic> terms = new HashMap<>();
+		put(terms, monomial(centres.length, -1), centres[i]);
+		if (order == 0)
+			return new TaylorModel(order, halfWidths, terms, halfWidths[i]);
+		put(terms, monomial(centres.length, i), Dyadic.ONE);
+		return new TaylorModel(order, halfWidths, terms, Dyadic.ZERO);
+	}
+
+	// Returns the model of the constant c over the same box as this model
+	public TaylorModel constant(Dyadic c) {
+		Map<List<Integer>, Dyadic> terms = new HashMap<>();
+		put(terms, monomial(halfWidths.length, -1), c);
+		return new TaylorModel(order, halfWidths, terms, Dyadic.ZERO);
+	}
+
+	// Returns a model of the constant {c} over the same box as this model, whose
+	// coefficient approximates {c} far below the remainders of the terms above the
+	// order, with the error of the approximation as the remainder
+	public TaylorModel constant(CR c) {
+		int exponent = 0;
+		for (Dyadic e : halfWidths)
+			exponent = Math.min(exponent, e.ceilLog2());
+		int precision = (int) Math.max((order + 1L) * exponent - 2 * CRFunctionModulus.modulus_bits,
+				CRFunctionModulus.min_modulus_floor);
+		TaylorModel model = constant(new Dyadic(c.get_appr(precision), precision));
+		return new TaylorModel(order, halfWidths, model.terms, new Dyadic(BigInteger.ONE, precision));
+	}
+
+	// Returns the order of the model
+	public int getOrder() {
+		return order;
+	}
+
+	// Returns the bound on the distance between the function and the polynomial
+	public Dyadic getRemainder() {
+		return remainder;
+	}
+
+	// Returns the coefficient of the monomial with the given exponents
+	public Dyadic getCoefficient(List<Integer> exponents) {
+		return getCoefficient(terms, exponents);
+	}
+
+	public TaylorModel add(TaylorModel y) {
+		Map<List<Integer>, Dyadic> sum = new HashMap<>(terms);
+		for (Map.Entry<List<Integer>, Dyadic> term : y.terms.entrySet()) {
+			put(sum, term.getKey(), getCoefficient(term.getKey()).add(term.getValue()));
+		}
+		return new TaylorModel(order, halfWidths, sum, remainder.add(y.remainder));
+	}
+
+	public TaylorModel negate() {
+		Map<List<Integer>, Dyadic> negated = new HashMap<>();
+		for (Map.Entry<List<Integer>, Dyadic> term : terms.entrySet()) {
+			negated.put(term.getKey(), term.getValue().negate());
+		}
+		return new TaylorModel(order, halfWidths, negated, remainder);
+	}
+
+	public TaylorModel subtract(TaylorModel y) {
+		return add(y.negate());
+	}
+
+	// (P + [-r,r]) * (Q + [-s,s]) is within |P|*s + |Q|*r + r*s of P*Q, where |P|
+	// bounds P over the box, and the terms of P*Q above the order are moved into
+	// the remainder
+	public TaylorModel multiply(TaylorModel y) {
+		Map<List<Integer>, Dyadic> product = new HashMap<>();
+		Dyadic truncated = Dyadic.ZERO;
+		for (Map.Entry<List<Integer>, Dyadic> a : terms.entrySet()) {
+			for (Map.Entry<List<Integer>, Dyadic> b : y.terms.entrySet()) {
+				List<Integer> exponents = multiply(a.getKey(), b.getKey());
+				Dyadic c = a.getValue().multiply(b.getValue());
+				if (degree(exponents) > order) {
+					truncated = truncated.add(c.abs().multiply(monomialBound(exponents)));
+				} else {
+					put(product, exponents, getCoefficient(product, exponents).add(c));
+				}
+			}
+		}
+		Dyadic r = magnitude().multiply(y.remainder).add(y.magnitude().multiply(remainder))
+				.add(remainder.multiply(y.remainder)).add(truncated);
+		return new TaylorModel(order, halfWidths, product, r);
+	}
+
+	// Returns a model of the absolute value of the function, which is the model
+	// itself or its negation if the function has constant sign over the box, and
+	// otherwise a constant model enclosing the range
+	public TaylorModel abs() {
+		Dyadic[] range = bound();
+		if (range[0].signum() >= 0)
+			return this;
+		if (range[1].signum() <= 0)
+			return negate();
+		Dyadic max = range[0].negate().compareTo(range[1]) > 0 ? range[0].negate() : range[1];
+		TaylorModel model = constant(max.shiftLeft(-1));
+		return new TaylorModel(order, halfWidths, model.terms, max.shiftLeft(-1));
+	}
+
+	// Returns {lower, upper}, bounds on the function over the box: the constant
+	// term, plus the range over the box of each other term, which for even powers
+	// in every input lies on one side of zero, plus or minus the remainder
+	public Dyadic[] bound() {
+		List<Integer> zero = monomial(halfWidths.length, -1);
+		Dyadic lower = getCoefficient(zero).subtract(remainder);
+		Dyadic upper = getCoefficient(zero).add(remainder);
+		for (Map.Entry<List<Integer>, Dyadic> term : terms.entrySet()) {
+			if (term.getKey().equals(zero))
+				continue;
+			Dyadic extent = term.getValue().multiply(monomialBound(term.getKey()));
+			if (!isEven(term.getKey())) {
+				lower = lower.subtract(extent.abs());
+				upper = upper.add(extent.abs());
+			} else if (extent.signum() < 0) {
+				lower = lower.add(extent);
+			} else {
+				upper = upper.add(extent);
+			}
+		}
+		return new Dyadic[] { lower, upper };
+	}
+
+	// Returns a bound on the absolute value of the polynomial over the box
+	private Dyadic magnitude() {
+		Dyadic sum = Dyadic.ZERO;
+		for (Map.Entry<List<Integer>, Dyadic> term : terms.entrySet()) {
+			sum = sum.add(term.getValue().abs().multiply(monomialBound(term.getKey())));
+		}
+		return sum;
+	}
+
+	// Returns the greatest value of |h^a| over the box, i.e. Prod_i e_i^a_i
+	private Dyadic monomialBound(List<Integer> exponents) {
+		Dyadic bound = Dyadic.ONE;
+		for (int i = 0; i < exponents.size(); i++) {
+			for (int k = 0; k < exponents.get(i); k++) {
+				bound = bound.multiply(halfWidths[i]);
+			}
+		}
+		return bound;
+	}
+
+	public String toString() {
+		List<String> strings = new ArrayList<>();
+		for (Map.Entry<List<Integer>, Dyadic> term : terms.entrySet()) {
+			strings.add(term.getValue() + " h^" + term.getKey());
+		}
+		Collections.sort(strings);
+		return String.join(" + ", strings) + " +- " + remainder;
+	}
+
+	// Returns the exponent vector of h_i over n inputs, or of 1 if i < 0
+	private static List<Integer> monomial(int n, int i) {
+		Integer[] exponents = new Integer[n];
+		Arrays.fill(exponents, 0);
+		if (i >= 0)
+			exponents[i] = 1;
+		return Collections.unmodifiableList(Arrays.asList(exponents));
+	}
+
+	// Returns the exponent vector of the product of two monomials
+	private static List<Integer> multiply(List<Integer> a, List<Integer> b) {
+		Integer[] exponents = new Integer[a.size()];
+		for (int i = 0; i < exponents.length; i++) {
+			exponents[i] = a.get(i) + b.get(i);
+		}
+		return Collections.unmodifiableList(Arrays.asList(exponents));
+	}
+
+	private static int degree(List<Integer> exponents) {
+		int degree = 0;
+		for (int a : exponents)
+			degree += a;
+		return degree;
+	}
+
+	private static boolean isEven(List<Integer> exponents) {
+		for (int a : exponents) {
+			if (a % 2 != 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static Dyadic getCoefficient(Map<List<Integer>, Dyadic> terms, List<Integer> exponents) {
+		Dyadic a = terms.get(exponents);
+		return a == null ? Dyadic.ZERO : a;
+	}
+
+	// Sets a coefficient, leaving out zero coefficients
+	private static void put(Map<List<Integer>, Dyadic> terms, List<Integer> exponents, Dyadic a) {
+		if (a.signum() == 0) {
+			terms.remove(exponents);
+		} else {
+			terms.put(exponents, a);
+		}
+	}
+
+}
@@ -0,0 +1,287 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import javafx.util.Pair;
+
+/*
+ * A Piyavskii-Shubert search for the global minimum of a function of one input, with which the
+ * branch-and-bound algorithms of GlobalSearchMain and ParallelGlobalSearch first narrow down the search
+ * area for univariate problems.
+ * The search area is split at sample points into segments [a,b]. Where the derivative over a segment
+ * lies in [l,u], the function is at least f(a) + l(y-a) and f(b) - u(b-y) for all y in [a,b], and the
+ * least value of the higher of these two lines (the 'saw-tooth') bounds it below over the segment; where
+ * the derivative is not bounded, the modulus of the function bounds every step of length at most d by
+ * M_d, so chaining such steps gives the lines f(a) - L(y-a) - M_d and f(b) - L(b-y) - M_d with L = M_d/d.
+ * Each step samples the function where the two lines cross in the segment with the least lower bound,
+ * and splits it in two, so samples are only spent near points that may still be global minimisers.
+ * Segments over which the function is monotone have their least value at a sample, and are not split.
+ * Sample points are doubles, and the bounds are computed in double interval arithmetic, so the search
+ * stops once the segment to split is as narrow as doubles allow; getMinimiserRegions() then gives the
+ * part of the search area left for the branch-and-bound algorithms to search in exact arithmetic.
+ */
+class UnivariateSearch {
+
+	// The modulus is taken at steps of 2^-step_bits times the width of a segment
+	private static final int step_bits = 4;
+
+	private CRFunctionModulus f;
+	private int timeGoal;
+	private double lower;
+	private double upper;
+	private PriorityQueue<Segment> segments = new PriorityQueue<>((a, b) -> Double.compare(a.bound, b.bound));
+	// The segments over which the function is monotone, and their least lower
+	// bound
+	private List<Segment> closed = new ArrayList<>();
+	private double closedBound = Double.POSITIVE_INFINITY;
+	// The sample with the least value upper-bound
+	private double bestInput;
+	private DoubleInterval bestValue;
+	// The number of exact evaluations of the function at samples, and of double
+	// interval evaluations of the function representation over segments, so far
+	private long samples = 0;
+	private long bounds = 0;
+	// The numbers of samples and bounds after which the enclosure of the global
+	// minimum last narrowed, and when it did
+	private long samplesToAccuracy;
+	private long boundsToAccuracy;
+	private long accurateTime;
+	private long createdTime = System.nanoTime();
+
+	// A segment [a,b] between samples, with enclosures of the function at its
+	// ends, and the slopes of the two lines of the saw-tooth over it and the lower
+	// bound they give
+	private static final class Segment {
+		final double a;
+		final double b;
+		final DoubleInterval fa;
+		final DoubleInterval fb;
+		double lowerSlope;
+		double upperSlope;
+		double bound;
+
+		Segment(double a, double b, DoubleInterval fa, DoubleInterval fb) {
+			this.a = a;
+			this.b = b;
+			this.fa = fa;
+			this.fb = fb;
+		}
+	}
+
+	// Initialise the search on the interval represented by the code
+	// (0,startPrecision), i.e. [-2^(startPrecision-1), 2^(startPrecision-1)]
+	public UnivariateSearch(CRFunctionModulus function, int startPrecision, int timeGoal) {
+		this.f = function;
+		this.timeGoal = timeGoal;
+		DoubleInterval area = DoubleInterval.of(new CRIntervalCode(BigInteger.ZERO, startPrecision));
+		lower = area.getLower();
+		upper = area.getUpper();
+		DoubleInterval fLower = sample(lower);
+		DoubleInterval fUpper = sample(upper);
+		bestInput = lower;
+		bestValue = fLower;
+		updateBest(upper, fUpper);
+		add(new Segment(lower, upper, fLower, fUpper), Double.NEGATIVE_INFINITY);
+		recordAccuracy();
+	}
+
+	// Records the cost of the enclosure of the global minimum as it narrows
+	private void recordAccuracy() {
+		samplesToAccuracy = samples;
+		boundsToAccuracy = bounds;
+		accurateTime = System.nanoTime();
+	}
+
+	// Returns an enclosure of the function at x, computed exactly where possible
+	private DoubleInterval sample(double x) {
+		samples++;
+		Dyadic[] exact = f.evaluateDyadic(new Dyadic[] { Dyadic.of(x) }, new Dyadic[] { Dyadic.ZERO });
+		if (exact != null)
+			return DoubleInterval.of(exact[0].getMantissa(), exact[0].getExponent());
+		return DoubleInterval.of(f.function(Arrays.asList(Dyadic.of(x).getCR())));
+	}
+
+	// Replace the best sample if the given one has a lower value upper-bound
+	private void updateBest(double x, DoubleInterval value) {
+		if (value.getUpper() < bestValue.getUpper()) {
+			bestInput = x;
+			bestValue = value;
+		}
+	}
+
+	// Bounds the function over a new segment and adds it to the search area, or
+	// records its bound if the function is monotone over it; the bound is at least
+	// the given bound over a segment containing it
+	private void add(Segment s, double outerBound) {
+		DoubleInterval width = new DoubleInterval(Math.nextDown(s.b - s.a), Math.nextUp(s.b - s.a));
+		bounds++;
+		DoubleInterval[] valueDerivative = f.gradientInterval(new DoubleInterval[] { new DoubleInterval(s.a, s.b) });
+		double offset = 0;
+		if (valueDerivative[1].isFinite()) {
+			s.lowerSlope = valueDerivative[1].getLower();
+			s.upperSlope = valueDerivative[1].getUpper();
+		} else {
+			bounds++;
+			int step = Math.getExponent(width.getUpper()) - step_bits;
+			DoubleInterval d = new DoubleInterval(Math.scalb(1.0, step), Math.scalb(1.0, step));
+			offset = f.evaluateInterval(new DoubleInterval[] { new DoubleInterval(s.a, s.b) },
+					new DoubleInterval[] { d })[1].getUpper();
+			s.upperSlope = Math.nextUp(Math.scalb(offset, -step));
+			s.lowerSlope = -s.upperSlope;
+		}
+		s.bound = Math.nextDown(sawTooth(s, width) - offset);
+		if (Double.isNaN(s.bound))
+			s.bound = Double.NEGATIVE_INFINITY;
+		s.bound = Math.max(s.bound, Math.max(valueDerivative[0].getLower(), outerBound));
+		if (s.lowerSlope >= 0 || s.upperSlope <= 0) {
+			closed.add(s);
+			closedBound = Math.min(closedBound, s.bound);
+		} else {
+			segments.add(s);
+		}
+	}
+
+	// Returns a lower bound on the saw-tooth max(A(y), B(y)) over the segment,
+	// where A(y) = f(a) + l(y-a) and B(y) = f(b) - u(b-y): for any t in [0,1], it is
+	// at least tA(y) + (1-t)B(y), which is least at an end of the segment, and is
+	// constant for t = u/(u-l), giving the value where the lines cross; t is
+	// rounded to a multiple of 2^-52, so that 1-t is exact too
+	private static double sawTooth(Segment s, DoubleInterval width) {
+		double t = s.lowerSlope >= 0 ? 1 : s.upperSlope <= 0 ? 0 : s.upperSlope / (s.upperSlope - s.lowerSlope);
+		t = Math.scalb(Math.rint(Math.scalb(t, 52)), -52);
+		DoubleInterval ta = new DoubleInterval(t, t);
+		DoubleInterval tb = new DoubleInterval(1 - t, 1 - t);
+		DoubleInterval lowerSlope = new DoubleInterval(s.lowerSlope, s.lowerSlope);
+		DoubleInterval upperSlope = new DoubleInterval(s.upperSlope, s.upperSlope);
+		DoubleInterval atA = ta.multiply(s.fa).add(tb.multiply(s.fb.subtract(upperSlope.multiply(width))));
+		DoubleInterval atB = ta.multiply(s.fa.add(lowerSlope.multiply(width))).add(tb.multiply(s.fb));
+		return Math.min(atA.getLower(), atB.getLower());
+	}
+
+	// Returns the point at which to split the segment: where the two lines of the
+	// saw-tooth cross (or the middle, if the slopes are not finite), kept in the
+	// middle half of the segment so that segments keep shrinking
+	private static double splitPoint(Segment s) {
+		double width = s.b - s.a;
+		double x = s.a + width / 2;
+		if (Double.isFinite(s.lowerSlope) && Double.isFinite(s.upperSlope)) {
+			double fa = s.fa.getLower() / 2 + s.fa.getUpper() / 2;
+			double fb = s.fb.getLower() / 2 + s.fb.getUpper() / 2;
+			double crossing = (fa - fb + s.upperSlope * s.b - s.lowerSlope * s.a) / (s.upperSlope - s.lowerSlope);
+			if (Double.isFinite(crossing))
+				x = crossing;
+		}
+		return Math.max(s.a + width / 4, Math.min(s.b - width / 4, x));
+	}
+
+	// Returns the number of exact evaluations of the function at samples after
+	// which the enclosure of the global minimum was as narrow as it is now; later
+	// ones only narrowed down where the global minimisers lie
+	public long getSamplesToAccuracy() {
+		return samplesToAccuracy;
+	}
+
+	// Returns the number of double interval evaluations of the function
+	// representation over segments after which the enclosure of the global minimum
+	// was as narrow as it is now; these are much cheaper than exact evaluations, so
+	// are counted apart from them
+	public long getBoundsToAccuracy() {
+		return boundsToAccuracy;
+	}
+
+	// Returns the time in milliseconds from the start of the search until the
+	// enclosure of the global minimum was as narrow as it is now
+	public long getTimeToAccuracy() {
+		return (accurateTime - createdTime) / 1000000;
+	}
+
+	// Returns the width of the enclosure of the global minimum, from the least
+	// lower bound over all segments to the least value upper-bound of a sample;
+	// this never increases, as segments are bounded at least as tightly as the
+	// segments they are split from
+	public double getAccuracy() {
+		return Math.nextUp(bestValue.getUpper() - leastBound());
+	}
+
+	// Returns disjoint intervals {lower, upper}, in increasing order, that together
+	// contain every global minimiser: the global minimisers lie in the segments
+	// whose lower bound is not above the best sample, or at the lower end of such a
+	// monotone segment
+	public List<double[]> getMinimiserRegions() {
+		List<double[]> intervals = new ArrayList<>();
+		intervals.add(new double[] { bestInput, bestInput });
+		for (Segment s : segments) {
+			if (s.bound <= bestValue.getUpper())
+				intervals.add(new double[] { s.a, s.b });
+		}
+		for (Segment s : closed) {
+			if (s.bound <= bestValue.getUpper()) {
+				double end = s.lowerSlope >= 0 ? s.a : s.b;
+				intervals.add(new double[] { end, end });
+			}
+		}
+		intervals.sort((a, b) -> Double.compare(a[0], b[0]));
+		List<double[]> regions = new ArrayList<>();
+		double[] region = intervals.get(0).clone();
+		for (double[] interval : intervals) {
+			if (interval[0] > region[1]) {
+				regions.add(region);
+				region = interval.clone();
+			}
+			region[1] = Math.max(region[1], interval[1]);
+		}
+		regions.add(region);
+		return regions;
+	}
+
+	private double leastBound() {
+		return segments.isEmpty() ? closedBound : Math.min(closedBound, segments.peek().bound);
+	}
+
+	// Algorithm
+	public Pair<String, Pair<CR, CR>> minimise() {
+		return minimise(0);
+	}
+
+	// As above, but stopping as soon as the enclosure of the global minimum is
+	// narrower than the given accuracy
+	public Pair<String, Pair<CR, CR>> minimise(double accuracyGoal) {
+		long startTime = System.nanoTime();
+		double accuracy = getAccuracy();
+		// Stop after a given amount of time, once the budget this search runs under is
+		// exceeded, once the accuracy goal is met, or once the segment to split is as
+		// narrow as doubles allow
+		while (!segments.isEmpty() && accuracy >= accuracyGoal
+				&& (System.nanoTime() - startTime) / 1000000 < timeGoal) {
+			CRBudget.checkCurrent();
+			Segment s = segments.peek();
+			// Segments bounded above the best sample cannot contain a global minimiser
+			if (s.bound > bestValue.getUpper())
+				break;
+			double x = splitPoint(s);
+			if (!(s.a < x && x < s.b))
+				break;
+			segments.poll();
+			DoubleInterval fx = sample(x);
+			updateBest(x, fx);
+			add(new Segment(s.a, x, s.fa, fx), s.bound);
+			add(new Segment(x, s.b, fx, s.fb), s.bound);
+			if (getAccuracy() < accuracy) {
+				accuracy = getAccuracy();
+				recordAccuracy();
+			}
+		}
+		List<double[]> regions = getMinimiserRegions();
+		double from = regions.get(0)[0];
+		double to = regions.get(regions.size() - 1)[1];
+		String globalSearchResult = "f([" + from + "," + to + "]) ==> [" + leastBound() + "," + bestValue.getUpper()
+				+ "]";
+		Dyadic x = Dyadic.of(bestInput);
+		Dyadic[] exact = f.evaluateDyadic(new Dyadic[] { x }, new Dyadic[] { Dyadic.ZERO });
+		CR value = exact != null ? exact[0].getCR() : f.function(Arrays.asList(x.getCR()));
+		return new Pair<>(globalSearchResult, new Pair<>(x.getCR(), value));
+	}
+
+}